@@ -0,0 +1,187 @@
+package dev.bekololek.newplayerprotection;
+
+import dev.bekololek.newplayerprotection.managers.ProtectionManager;
+import dev.bekololek.newplayerprotection.managers.StatsManager;
+import dev.bekololek.newplayerprotection.util.Metrics;
+import dev.bekololek.newplayerprotection.util.TaskScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight stand-ins for the Bukkit types the benchmarks touch.
+ * <p>
+ * There is no server in a JMH fork, so the plugin instance is allocated without running
+ * {@link JavaPlugin}'s constructor (which insists on a plugin class loader) and its fields
+ * are filled in by reflection. The server, scheduler and players are dynamic proxies that
+ * answer the handful of calls the plugin makes and return defaults for everything else.
+ * Scheduled tasks are dropped, so autosaves and sweeps never run during a measurement.
+ */
+public final class BenchmarkFixture {
+
+    private static final Unsafe UNSAFE = unsafe();
+    private static final Logger LOGGER = Logger.getLogger("NewPlayerProtection");
+    private static final Map<UUID, Player> ONLINE = new ConcurrentHashMap<>();
+
+    static {
+        LOGGER.setLevel(Level.WARNING);
+    }
+
+    private BenchmarkFixture() {}
+
+    // ── Plugin ───────────────────────────────────────────────────────────────
+
+    /** A plugin instance using the bundled config.yml with {@code overrides} applied. */
+    public static Main plugin(Map<String, Object> overrides) throws IOException {
+        installServer();
+        ONLINE.clear();
+
+        YamlConfiguration config;
+        try (InputStream in = BenchmarkFixture.class.getResourceAsStream("/config.yml")) {
+            if (in == null) throw new IOException("config.yml not on the classpath");
+            config = YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        overrides.forEach(config::set);
+
+        Main plugin = allocate(Main.class);
+        Path dataFolder = Files.createTempDirectory("npp-bench");
+        dataFolder.toFile().deleteOnExit();
+        setField(plugin, JavaPlugin.class, "dataFolder", dataFolder.toFile());
+        setField(plugin, JavaPlugin.class, "logger", LOGGER);
+        setField(plugin, Main.class, "settings", Settings.load(config));
+        setField(plugin, Main.class, "taskScheduler", new TaskScheduler(plugin));
+        setField(plugin, Main.class, "metrics", new Metrics(plugin));
+        return plugin;
+    }
+
+    /** Wire the managers into the plugin, as {@code onEnable} does. */
+    public static void attach(Main plugin, ProtectionManager protectionManager, StatsManager statsManager) {
+        setField(plugin, Main.class, "protectionManager", protectionManager);
+        setField(plugin, Main.class, "statsManager", statsManager);
+    }
+
+    // ── Players / events ─────────────────────────────────────────────────────
+
+    /** An offline player stand-in without the bypass permission. */
+    public static Player player(String name) {
+        return player(UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)), name);
+    }
+
+    public static Player player(UUID uuid, String name) {
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            case "getUniqueId" -> uuid;
+            case "getName" -> name;
+            case "isOnline" -> ONLINE.containsKey(uuid);
+            case "hasPlayedBefore" -> true;
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> uuid.hashCode();
+            case "toString" -> name;
+            default -> defaultValue(method.getReturnType());
+        };
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class}, handler);
+    }
+
+    /** Mark players as online, so {@code Bukkit.getPlayer} and the online list return them. */
+    public static void online(Player... players) {
+        for (Player player : players) ONLINE.put(player.getUniqueId(), player);
+    }
+
+    /**
+     * A melee hit from {@code attacker} on {@code victim}. Real damage events need the
+     * damage-source registry, so the event is allocated bare and only the fields the
+     * listener reads are set.
+     */
+    public static EntityDamageByEntityEvent hit(Player attacker, Player victim) {
+        EntityDamageByEntityEvent event = allocate(EntityDamageByEntityEvent.class);
+        setField(event, org.bukkit.event.entity.EntityEvent.class, "entity", victim);
+        setField(event, EntityDamageByEntityEvent.class, "damager", attacker);
+        return event;
+    }
+
+    // ── Server ───────────────────────────────────────────────────────────────
+
+    private static synchronized void installServer() {
+        if (Bukkit.getServer() != null) return;
+
+        BukkitScheduler scheduler = (BukkitScheduler) Proxy.newProxyInstance(
+                BukkitScheduler.class.getClassLoader(), new Class<?>[]{BukkitScheduler.class},
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            case "getOnlinePlayers" -> List.copyOf(ONLINE.values());
+            case "getPlayer" -> args[0] instanceof UUID uuid ? ONLINE.get(uuid) : null;
+            case "getScheduler" -> scheduler;
+            case "isPrimaryThread" -> true;
+            case "getLogger" -> LOGGER;
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> "BenchmarkServer";
+            default -> defaultValue(method.getReturnType());
+        };
+        Bukkit.setServer((Server) Proxy.newProxyInstance(
+                Server.class.getClassLoader(), new Class<?>[]{Server.class}, handler));
+    }
+
+    // ── Reflection ───────────────────────────────────────────────────────────
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+
+    private static <T> T allocate(Class<T> type) {
+        try {
+            return type.cast(UNSAFE.allocateInstance(type));
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("Cannot allocate " + type.getName(), e);
+        }
+    }
+
+    private static void setField(Object target, Class<?> owner, String name, Object value) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+
+    private static Unsafe unsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
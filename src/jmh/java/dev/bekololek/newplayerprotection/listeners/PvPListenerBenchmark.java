@@ -0,0 +1,81 @@
+package dev.bekololek.newplayerprotection.listeners;
+
+import dev.bekololek.newplayerprotection.BenchmarkFixture;
+import dev.bekololek.newplayerprotection.Main;
+import dev.bekololek.newplayerprotection.managers.ProtectionManager;
+import dev.bekololek.newplayerprotection.managers.StatsManager;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the protect/deny decision for one player-on-player hit.
+ * <ul>
+ *   <li>{@code nobody-protected}: no protected player online, the early exit</li>
+ *   <li>{@code bystander-protected}: someone else is protected, both lookups miss</li>
+ *   <li>{@code victim-protected}: the hit is cancelled, counted and coalesced</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PvPListenerBenchmark {
+
+    @Param({"nobody-protected", "bystander-protected", "victim-protected"})
+    public String scenario;
+
+    private ProtectionManager protectionManager;
+    private PvPListener listener;
+    private EntityDamageByEntityEvent event;
+
+    @Setup
+    public void setUp() throws IOException {
+        Main plugin = BenchmarkFixture.plugin(Map.of());
+        protectionManager = new ProtectionManager(plugin, null);
+        StatsManager statsManager = new StatsManager(plugin, null);
+        BenchmarkFixture.attach(plugin, protectionManager, statsManager);
+        protectionManager.loadData();
+
+        Player attacker = BenchmarkFixture.player("Attacker");
+        Player victim = BenchmarkFixture.player("Victim");
+        Player bystander = BenchmarkFixture.player("Bystander");
+        BenchmarkFixture.online(attacker, victim, bystander);
+        switch (scenario) {
+            case "bystander-protected" -> protectionManager.addProtection(bystander.getUniqueId());
+            case "victim-protected" -> protectionManager.addProtection(victim.getUniqueId());
+            default -> { }
+        }
+
+        listener = new PvPListener(plugin, protectionManager, statsManager);
+        event = BenchmarkFixture.hit(attacker, victim);
+    }
+
+    @TearDown
+    public void tearDown() {
+        protectionManager.shutdown();
+    }
+
+    @Benchmark
+    public boolean onHit() {
+        listener.onEntityDamageByEntity(event);
+        return event.isCancelled();
+    }
+}
@@ -0,0 +1,84 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import dev.bekololek.newplayerprotection.BenchmarkFixture;
+import dev.bekololek.newplayerprotection.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/** Protection lookups against a populated map, and remaining-time formatting. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtectionManagerBenchmark {
+
+    private static final long SECOND = 1000L;
+    private static final long HOUR = 3600 * SECOND;
+
+    @Param({"1000", "100000"})
+    public int protectedPlayers;
+
+    private ProtectionManager protectionManager;
+    private UUID[] protectedIds;
+    private UUID[] unknownIds;
+    private final long[] durations = {
+            3 * 24 * HOUR + 5 * HOUR,   // days and hours
+            7 * HOUR + 42 * 60 * SECOND, // hours and minutes
+            59 * SECOND                  // seconds only
+    };
+    private int cursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Journal without compaction, so filling the map is one small append per grant
+        Main plugin = BenchmarkFixture.plugin(Map.of("storage.journal-compact-threshold", Integer.MAX_VALUE));
+        protectionManager = new ProtectionManager(plugin, null);
+        BenchmarkFixture.attach(plugin, protectionManager, null);
+        protectionManager.loadData();
+
+        protectedIds = new UUID[protectedPlayers];
+        unknownIds = new UUID[1024];
+        for (int i = 0; i < protectedIds.length; i++) {
+            protectedIds[i] = UUID.randomUUID();
+            protectionManager.addProtection(protectedIds[i]);
+        }
+        for (int i = 0; i < unknownIds.length; i++) unknownIds[i] = UUID.randomUUID();
+    }
+
+    @TearDown
+    public void tearDown() {
+        protectionManager.shutdown();
+    }
+
+    @Benchmark
+    public boolean isProtectedHit() {
+        return protectionManager.isProtected(protectedIds[cursor++ % protectedIds.length]);
+    }
+
+    @Benchmark
+    public boolean isProtectedMiss() {
+        return protectionManager.isProtected(unknownIds[cursor++ & (unknownIds.length - 1)]);
+    }
+
+    @Benchmark
+    public String formatTime() {
+        return protectionManager.formatTime(durations[cursor++ % durations.length]);
+    }
+}
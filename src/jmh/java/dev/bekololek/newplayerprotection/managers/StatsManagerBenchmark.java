@@ -0,0 +1,109 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import dev.bekololek.newplayerprotection.BenchmarkFixture;
+import dev.bekololek.newplayerprotection.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaderboard and global stat reads, the stats.yml export, and contended hit recording,
+ * over a fully loaded store.
+ * The store is written as stats.bin and read back through {@link StatsManager#load()}, so
+ * the leaderboards are built the same way as on a real start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StatsManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int players;
+
+    private static final int HOT_PLAYERS = 64;
+
+    private ProtectionManager protectionManager;
+    private StatsManager statsManager;
+    private final UUID[] hotPlayers = new UUID[HOT_PLAYERS];
+
+    @Setup
+    public void setUp() throws IOException {
+        Main plugin = BenchmarkFixture.plugin(Map.of());
+        protectionManager = new ProtectionManager(plugin, null);
+        statsManager = new StatsManager(plugin, null);
+        BenchmarkFixture.attach(plugin, protectionManager, statsManager);
+        protectionManager.loadData();
+
+        // Skewed counters like a real server: most players were barely hit
+        Random random = new Random(42);
+        StatsStore store = new StatsStore();
+        for (int i = 0; i < players; i++) {
+            int id = store.getOrAdd(new UUID(random.nextLong(), random.nextLong()), "Player" + i);
+            store.set(StatsStore.ATTACKS_BLOCKED, id, (int) (Math.pow(random.nextDouble(), 4) * 10_000));
+            store.set(StatsStore.ATTACKS_PREVENTED, id, random.nextInt(50));
+        }
+        StatsSnapshot.writeAtomically(StatsSnapshot.encode(store, players),
+                new File(plugin.getDataFolder(), "stats.bin"));
+        statsManager.load();
+
+        for (int i = 0; i < HOT_PLAYERS; i++) hotPlayers[i] = new UUID(i, i);
+    }
+
+    /** Per-thread cursor, so parallel threads hit overlapping players like region threads do. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @TearDown
+    public void tearDown() {
+        protectionManager.shutdown();
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Number>> getTopPlayers() {
+        return statsManager.getTopPlayers("attacks_blocked", 10);
+    }
+
+    @Benchmark
+    public Object getGlobalStat() {
+        return statsManager.getGlobalStat("total_attacks_blocked");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordAttackBlocked(Cursor cursor) {
+        UUID uuid = hotPlayers[cursor.next++ & (HOT_PLAYERS - 1)];
+        statsManager.recordAttackBlocked(uuid, "Hot");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public String yamlExport() {
+        return statsManager.buildYamlExport().saveToString();
+    }
+}
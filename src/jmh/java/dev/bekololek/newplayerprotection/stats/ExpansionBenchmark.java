@@ -0,0 +1,90 @@
+package dev.bekololek.newplayerprotection.stats;
+
+import dev.bekololek.newplayerprotection.BenchmarkFixture;
+import dev.bekololek.newplayerprotection.Main;
+import dev.bekololek.newplayerprotection.managers.ProtectionManager;
+import dev.bekololek.newplayerprotection.managers.StatsManager;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NewPlayerProtectionExpansion#onRequest} for each placeholder family, both served
+ * from the placeholder cache and resolved from scratch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpansionBenchmark {
+
+    private static final int PLAYERS = 1000;
+
+    @Param({
+            "stat_attacks_blocked",
+            "stat_protected",
+            "stat_protection_time_remaining",
+            "global_total_attacks_blocked",
+            "top_attacks_blocked_1",
+            "topvalue_attacks_blocked_1"
+    })
+    public String placeholder;
+
+    private ProtectionManager protectionManager;
+    private NewPlayerProtectionExpansion expansion;
+    private Player viewer;
+
+    @Setup
+    public void setUp() throws IOException {
+        Main plugin = BenchmarkFixture.plugin(Map.of());
+        protectionManager = new ProtectionManager(plugin, null);
+        StatsManager statsManager = new StatsManager(plugin, null);
+        BenchmarkFixture.attach(plugin, protectionManager, statsManager);
+        protectionManager.loadData();
+
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = BenchmarkFixture.player("Player" + i);
+            for (int hit = 0; hit < i % 17; hit++) {
+                statsManager.recordAttackBlocked(player.getUniqueId(), player.getName());
+            }
+        }
+        statsManager.aggregate();
+        viewer = BenchmarkFixture.player("Player7");
+        BenchmarkFixture.online(viewer);
+        protectionManager.addProtection(viewer.getUniqueId());
+
+        expansion = new NewPlayerProtectionExpansion(plugin, statsManager, protectionManager);
+    }
+
+    @TearDown
+    public void tearDown() {
+        protectionManager.shutdown();
+    }
+
+    @Benchmark
+    public String cached() {
+        return expansion.onRequest(viewer, placeholder);
+    }
+
+    @Benchmark
+    public String uncached() {
+        expansion.getCache().invalidate(null);
+        return expansion.onRequest(viewer, placeholder);
+    }
+}
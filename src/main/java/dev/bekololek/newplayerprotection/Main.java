@@ -3,31 +3,74 @@ package dev.bekololek.newplayerprotection;
 import dev.bekololek.newplayerprotection.commands.NewPlayerProtectionCommand;
 import dev.bekololek.newplayerprotection.listeners.JoinListener;
 import dev.bekololek.newplayerprotection.listeners.PvPListener;
+import dev.bekololek.newplayerprotection.listeners.QuitListener;
 import dev.bekololek.newplayerprotection.managers.ProtectionManager;
+import dev.bekololek.newplayerprotection.managers.SqlStorage;
 import dev.bekololek.newplayerprotection.managers.StatsManager;
 import dev.bekololek.newplayerprotection.stats.NewPlayerProtectionExpansion;
+import dev.bekololek.newplayerprotection.stats.PlaceholderCache;
+import dev.bekololek.newplayerprotection.stats.StatsHttpServer;
+import dev.bekololek.newplayerprotection.util.MessageTemplate;
+import dev.bekololek.newplayerprotection.util.Metrics;
+import dev.bekololek.newplayerprotection.util.TaskScheduler;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.List;
+
 public class Main extends JavaPlugin {
 
     private ProtectionManager protectionManager;
     private StatsManager statsManager;
+    private NewPlayerProtectionExpansion expansion;
+    private PvPListener pvpListener;
+    private TaskScheduler taskScheduler;
+    private volatile Settings settings;
+    private SqlStorage sqlStorage; // null for file storage
+    private Metrics metrics;
+    private StatsHttpServer httpServer; // null unless http.enabled
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
+        settings = Settings.load(getConfig());
+        taskScheduler = new TaskScheduler(this);
+        metrics = new Metrics(this);
+
+        String storageType = settings.storageType();
+        if (!storageType.equalsIgnoreCase("yaml")) {
+            sqlStorage = SqlStorage.open(this, storageType);
+        }
 
-        protectionManager = new ProtectionManager(this);
+        protectionManager = new ProtectionManager(this, sqlStorage);
         protectionManager.loadData();
+        protectionManager.startExpiryTask();
+        protectionManager.startAutoSave();
 
-        statsManager = new StatsManager(this);
+        statsManager = new StatsManager(this, sqlStorage);
         statsManager.load();
         statsManager.startAutoSave();
+        statsManager.startAggregation();
+        statsManager.startHistory();
+
+        // Protected players without stats are only known by UUID; name them for tab completion
+        taskScheduler.runAsync(() -> statsManager.getNameIndex()
+                .putOffline(List.copyOf(protectionManager.getProtectedPlayers())));
+
+        // Metrics
+        metrics.gauge("protection.protected", protectionManager::getProtectedCount);
+        metrics.gauge("protection.online_protected", protectionManager::getOnlineProtectedCount);
+        metrics.gauge("stats.resident", statsManager::getResidentCount);
+        metrics.gauge("stats.names", () -> statsManager.getNameIndex().size());
+        metrics.gauge("stats.pending", statsManager::getPendingCount);
+        metrics.registerMBean();
+        metrics.startLogging();
 
         // Listeners
         var pm = getServer().getPluginManager();
-        pm.registerEvents(new PvPListener(this, protectionManager, statsManager), this);
+        pvpListener = new PvPListener(this, protectionManager, statsManager);
+        pm.registerEvents(pvpListener, this);
         pm.registerEvents(new JoinListener(this, protectionManager, statsManager), this);
+        pm.registerEvents(new QuitListener(protectionManager, statsManager), this);
 
         // Commands
         var cmd = getCommand("newplayerprotection");
@@ -39,17 +82,30 @@ public class Main extends JavaPlugin {
 
         // PlaceholderAPI expansion
         if (getServer().getPluginManager().getPlugin("PlaceholderAPI") != null) {
-            new NewPlayerProtectionExpansion(this, statsManager, protectionManager).register();
+            expansion = new NewPlayerProtectionExpansion(this, statsManager, protectionManager);
+            expansion.register();
+            PlaceholderCache cache = expansion.getCache();
+            metrics.placeholderCache(cache::getHits, cache::getMisses);
             getLogger().info("PlaceholderAPI expansion registered.");
         }
 
-        getLogger().info("NewPlayerProtection.v1 - BL enabled.");
+        // Website API
+        if (settings.httpEnabled()) {
+            httpServer = new StatsHttpServer(this, statsManager, protectionManager);
+            if (!httpServer.start(settings.httpPort())) httpServer = null;
+        }
+
+        getLogger().info("NewPlayerProtection.v1 - BL enabled" + (TaskScheduler.isFolia() ? " (Folia)." : "."));
     }
 
     @Override
     public void onDisable() {
+        if (httpServer != null) httpServer.stop();
+        if (taskScheduler != null) taskScheduler.cancelAll();
         if (statsManager != null) statsManager.saveSync();
-        if (protectionManager != null) protectionManager.saveData();
+        if (protectionManager != null) protectionManager.shutdown();
+        if (sqlStorage != null) sqlStorage.close();
+        if (metrics != null) metrics.unregisterMBean();
         getLogger().info("NewPlayerProtection.v1 - BL disabled.");
     }
 
@@ -61,20 +117,42 @@ public class Main extends JavaPlugin {
         return statsManager;
     }
 
+    /** Current settings snapshot. Replaced as a whole on reload; do not cache it. */
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Reload config and protection data from disk.
      */
     public void reloadPlugin() {
         reloadConfig();
+        settings = Settings.load(getConfig());
         protectionManager.loadData();
+        pvpListener.reload();
+        if (expansion != null) expansion.reload();
+    }
+
+    /**
+     * Get the compiled template for a message key. Templates are rebuilt on reload.
+     */
+    public MessageTemplate message(String key) {
+        return settings.messages().get(key);
     }
 
     /**
      * Get a formatted message from config with color codes translated.
      */
     public String getMessage(String key) {
-        String message = getConfig().getString("messages." + key, "&cMessage not found: " + key);
-        return translateColors(message);
+        return settings.messages().get(key).legacy();
     }
 
     /**
@@ -88,8 +166,6 @@ public class Main extends JavaPlugin {
      * Get the configured protection duration in milliseconds.
      */
     public long getProtectionDurationMillis() {
-        long hours = getConfig().getLong("protection-duration-hours", 72);
-        long minutes = getConfig().getLong("protection-duration-minutes", 0);
-        return (hours * 60 * 60 * 1000) + (minutes * 60 * 1000);
+        return settings.protectionDurationMillis();
     }
 }
@@ -0,0 +1,111 @@
+package dev.bekololek.newplayerprotection;
+
+import dev.bekololek.newplayerprotection.util.Messages;
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * Every setting in config.yml, parsed once. A new instance is built on enable and on
+ * reload and published by a single volatile write in {@link Main}, so readers on any
+ * thread always see one consistent set of values and never touch the config tree.
+ * Durations are stored in the unit they are used in.
+ */
+public record Settings(
+        // Protection
+        long protectionDurationMillis,
+        long protectionDurationHours,
+        boolean playtimeCountdown,
+
+        // Storage (read at startup only)
+        String storageType,
+        boolean journal,
+        int journalCompactThreshold,
+
+        // HTTP API (read at startup only)
+        boolean httpEnabled,
+        int httpPort,
+
+        // PvP / notifications
+        long bypassCacheMillis,
+        long coalesceWindowMillis,
+        boolean summaryAsActionBar,
+
+        // Stats
+        boolean yamlExportEnabled,
+        long yamlExportIntervalMillis,
+        boolean pagingEnabled,
+        int pagingMaxCachedPlayers,
+        int pagingLeaderboardSize,
+        long pagingFlushIntervalTicks,
+        long statsAggregateIntervalTicks,
+        boolean historyEnabled,
+        long historyIntervalTicks,
+        int historyRawRecords,
+        int historyHourlyRecords,
+        int historyDailyRecords,
+
+        // Placeholder cache TTLs, 0 when caching is disabled
+        long statTtlMillis,
+        long timeRemainingTtlMillis,
+        long globalTtlMillis,
+        long topTtlMillis,
+
+        // Metrics
+        boolean metricsEnabled,
+        long metricsLogIntervalMillis,
+
+        Messages messages
+) {
+
+    public static Settings load(FileConfiguration config) {
+        long hours = config.getLong("protection-duration-hours", 72);
+        long minutes = config.getLong("protection-duration-minutes", 0);
+        boolean cache = config.getBoolean("placeholders.cache.enabled", true);
+        long historySeconds = Math.max(1L, config.getLong("stats.history.interval-seconds", 60));
+
+        return new Settings(
+                (hours * 60 * 60 * 1000) + (minutes * 60 * 1000),
+                hours,
+                "playtime".equalsIgnoreCase(config.getString("protection-countdown", "realtime")),
+
+                config.getString("storage.type", "yaml"),
+                config.getBoolean("storage.journal", true),
+                config.getInt("storage.journal-compact-threshold", 1000),
+
+                config.getBoolean("http.enabled", false),
+                config.getInt("http.port", 8765),
+
+                config.getLong("pvp.bypass-cache-seconds", 30) * 1000L,
+                Math.max(0L, config.getLong("notifications.coalesce-window-millis", 1000)),
+                !"chat".equalsIgnoreCase(config.getString("notifications.summary", "actionbar")),
+
+                config.getBoolean("stats.yaml-export.enabled", true),
+                config.getLong("stats.yaml-export.interval-minutes", 30) * 60_000L,
+                config.getBoolean("stats.paging.enabled", false),
+                config.getInt("stats.paging.max-cached-players", 5000),
+                config.getInt("stats.paging.leaderboard-size", 100),
+                Math.max(1L, config.getLong("stats.paging.flush-interval-seconds", 60)) * 20L,
+                Math.max(1L, config.getLong("stats.aggregate-interval-ticks", 20)),
+                config.getBoolean("stats.history.enabled", true),
+                historySeconds * 20L,
+                // Each ring must hold at least one bucket of the next, so rollups have their input
+                (int) Math.max(3600 / historySeconds + 1,
+                        config.getLong("stats.history.raw-retention-hours", 48) * 3600 / historySeconds),
+                (int) Math.max(25, config.getLong("stats.history.hourly-retention-days", 60) * 24),
+                (int) Math.max(1, config.getLong("stats.history.daily-retention-days", 730)),
+
+                cache ? ticksToMillis(config, "stat", 200) : 0,
+                cache ? ticksToMillis(config, "time-remaining", 20) : 0,
+                cache ? ticksToMillis(config, "global", 20) : 0,
+                cache ? ticksToMillis(config, "top", 20) : 0,
+
+                config.getBoolean("metrics.enabled", true),
+                Math.max(0L, config.getLong("metrics.log-interval-minutes", 0)) * 60_000L,
+
+                Messages.compile(config.getConfigurationSection("messages"))
+        );
+    }
+
+    private static long ticksToMillis(FileConfiguration config, String family, long def) {
+        return config.getLong("placeholders.cache.ttl-ticks." + family, def) * 50L;
+    }
+}
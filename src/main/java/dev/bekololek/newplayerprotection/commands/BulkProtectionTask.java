@@ -0,0 +1,107 @@
+package dev.bekololek.newplayerprotection.commands;
+
+import dev.bekololek.newplayerprotection.Main;
+import dev.bekololek.newplayerprotection.managers.ProtectionManager;
+import dev.bekololek.newplayerprotection.managers.StatsManager;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Applies a bulk grant or removal one slice per tick, so a batch of thousands of players
+ * never stalls a single tick. Every change goes through one
+ * {@link ProtectionManager.BulkEdit} and is persisted in a single write after the last slice.
+ * Runs on the global thread.
+ */
+final class BulkProtectionTask {
+
+    private static final int SLICE = 250;
+    private static final int PROGRESS_INTERVAL_TICKS = 40;
+
+    private final Main plugin;
+    private final StatsManager statsManager;
+    private final boolean grant;
+    private final List<UUID> targets;
+    private final Consumer<Component> reply;
+    private final Runnable onDone;
+    private final ProtectionManager.BulkEdit edit;
+    private final Component playerMessage;
+
+    private int next;
+    private int changed;
+    private int ticks;
+
+    BulkProtectionTask(Main plugin, ProtectionManager protectionManager, StatsManager statsManager,
+                       boolean grant, List<UUID> targets, Consumer<Component> reply, Runnable onDone) {
+        this.plugin = plugin;
+        this.statsManager = statsManager;
+        this.grant = grant;
+        this.targets = targets;
+        this.reply = reply;
+        this.onDone = onDone;
+        this.edit = protectionManager.bulkEdit();
+        this.playerMessage = grant
+                ? plugin.message("protection-granted")
+                        .render("%hours%", String.valueOf(plugin.getSettings().protectionDurationHours()))
+                : plugin.message("protection-expired").component();
+    }
+
+    void start() {
+        plugin.getTaskScheduler().runGlobal(this::step);
+    }
+
+    private void step() {
+        try {
+            applySlice();
+        } catch (RuntimeException e) {
+            // Keep what was applied so far and free the command for another attempt
+            edit.commit();
+            if (grant) statsManager.recordNewProtections(changed);
+            plugin.getLogger().log(Level.SEVERE, "Bulk " + verb() + " failed", e);
+            reply.accept(Component.text("Bulk " + verb() + " failed after " + changed
+                    + " players; see the console.", NamedTextColor.RED));
+            onDone.run();
+            return;
+        }
+
+        if (next < targets.size()) {
+            if (++ticks % PROGRESS_INTERVAL_TICKS == 0) {
+                reply.accept(Component.text("Bulk " + verb() + ": " + next + "/" + targets.size()
+                        + " (" + (next * 100L / targets.size()) + "%)", NamedTextColor.GRAY));
+            }
+            plugin.getTaskScheduler().runGlobalLater(this::step, 1L);
+            return;
+        }
+
+        edit.commit();
+        if (grant) statsManager.recordNewProtections(changed);
+        int skipped = targets.size() - changed;
+        reply.accept(Component.text("Bulk " + verb() + " done: " + changed + " players changed"
+                + (skipped > 0 ? ", " + skipped + (grant ? " already protected." : " were not protected.") : "."),
+                NamedTextColor.GREEN));
+        onDone.run();
+    }
+
+    private void applySlice() {
+        int end = Math.min(targets.size(), next + SLICE);
+        for (; next < end; next++) {
+            UUID uuid = targets.get(next);
+            if (!(grant ? edit.add(uuid) : edit.remove(uuid))) continue;
+            changed++;
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null) {
+                plugin.getTaskScheduler().runForPlayer(player, () -> player.sendMessage(playerMessage));
+            }
+        }
+    }
+
+    private String verb() {
+        return grant ? "add" : "remove";
+    }
+}
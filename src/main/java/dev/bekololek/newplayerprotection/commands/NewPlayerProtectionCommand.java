@@ -1,8 +1,10 @@
 package dev.bekololek.newplayerprotection.commands;
 
 import dev.bekololek.newplayerprotection.Main;
+import dev.bekololek.newplayerprotection.managers.NameIndex;
 import dev.bekololek.newplayerprotection.managers.ProtectionManager;
 import dev.bekololek.newplayerprotection.managers.StatsManager;
+import dev.bekololek.newplayerprotection.util.Metrics;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
@@ -13,23 +15,44 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter {
 
+    private static final int MAX_COMPLETIONS = 50;
+    private static final List<String> BULK_SOURCES = List.of("online", "joined", "file");
+
     private final Main plugin;
     private final ProtectionManager protectionManager;
     private final StatsManager statsManager;
+    private final AtomicBoolean bulkRunning = new AtomicBoolean();
+
+    // Protected players by name, for remove/check completion. Protection changes queue the
+    // player in unnamedProtected; they are indexed once their name is known.
+    private final NameIndex protectedNames = new NameIndex();
+    private final Set<UUID> unnamedProtected = ConcurrentHashMap.newKeySet();
 
     public NewPlayerProtectionCommand(Main plugin, ProtectionManager protectionManager,
                                        StatsManager statsManager) {
         this.plugin = plugin;
         this.protectionManager = protectionManager;
         this.statsManager = statsManager;
+        protectionManager.addChangeListener(this::protectionChanged);
+        protectionChanged(null);
     }
 
     @Override
@@ -46,6 +69,8 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
             case "remove" -> handleRemove(sender, label, args);
             case "check"  -> handleCheck(sender, label, args);
             case "stats"  -> handleStats(sender, label, args);
+            case "bulk"   -> handleBulk(sender, label, args);
+            case "debug"  -> handleDebug(sender, label, args);
             default       -> sendHelp(sender, label);
         }
 
@@ -62,9 +87,9 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
 
         if (protectionManager.isProtected(player)) {
             String time = protectionManager.formatTime(protectionManager.getRemainingTime(player));
-            sender.sendMessage(plugin.getMessage("self-protected").replace("%time%", time));
+            sender.sendMessage(plugin.message("self-protected").render("%time%", time));
         } else {
-            sender.sendMessage(plugin.getMessage("self-not-protected"));
+            sender.sendMessage(plugin.message("self-not-protected").component());
         }
     }
 
@@ -72,18 +97,18 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
 
     private void handleReload(CommandSender sender) {
         if (!sender.hasPermission("newplayerprotection.admin")) {
-            sender.sendMessage(plugin.getMessage("no-permission"));
+            sender.sendMessage(plugin.message("no-permission").component());
             return;
         }
         plugin.reloadPlugin();
-        sender.sendMessage(plugin.getMessage("config-reloaded"));
+        sender.sendMessage(plugin.message("config-reloaded").component());
     }
 
     // ── add ──────────────────────────────────────────────────────────────────
 
     private void handleAdd(CommandSender sender, String label, String[] args) {
         if (!sender.hasPermission("newplayerprotection.admin")) {
-            sender.sendMessage(plugin.getMessage("no-permission"));
+            sender.sendMessage(plugin.message("no-permission").component());
             return;
         }
         if (args.length < 2) {
@@ -91,39 +116,32 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
             return;
         }
 
-        @SuppressWarnings("deprecation")
-        OfflinePlayer target = Bukkit.getOfflinePlayer(args[1]);
-
-        if (!target.hasPlayedBefore() && !target.isOnline()) {
-            sender.sendMessage(plugin.getMessage("player-not-found"));
-            return;
-        }
-
-        if (protectionManager.isProtected(target.getUniqueId())) {
-            sender.sendMessage(plugin.getMessage("player-already-protected"));
-            return;
-        }
+        resolveTarget(sender, args[1], target -> {
+            if (protectionManager.isProtected(target.uuid())) {
+                sender.sendMessage(plugin.message("player-already-protected").component());
+                return;
+            }
 
-        protectionManager.addProtection(target.getUniqueId());
-        statsManager.recordNewProtection();
-        String name = target.getName() != null ? target.getName() : args[1];
-        sender.sendMessage(plugin.getMessage("player-added").replace("%player%", name));
+            protectionManager.addProtection(target.uuid());
+            statsManager.recordNewProtection();
+            sender.sendMessage(plugin.message("player-added").render("%player%", target.name()));
 
-        if (target.isOnline()) {
-            Player onlineTarget = target.getPlayer();
+            Player onlineTarget = Bukkit.getPlayer(target.uuid());
             if (onlineTarget != null) {
-                long hours = plugin.getConfig().getLong("protection-duration-hours", 72);
-                onlineTarget.sendMessage(plugin.getMessage("protection-granted")
-                        .replace("%hours%", String.valueOf(hours)));
+                long hours = plugin.getSettings().protectionDurationHours();
+                Component message = plugin.message("protection-granted")
+                        .render("%hours%", String.valueOf(hours));
+                plugin.getTaskScheduler().runForPlayer(onlineTarget,
+                        () -> onlineTarget.sendMessage(message));
             }
-        }
+        });
     }
 
     // ── remove ───────────────────────────────────────────────────────────────
 
     private void handleRemove(CommandSender sender, String label, String[] args) {
         if (!sender.hasPermission("newplayerprotection.admin")) {
-            sender.sendMessage(plugin.getMessage("no-permission"));
+            sender.sendMessage(plugin.message("no-permission").component());
             return;
         }
         if (args.length < 2) {
@@ -131,36 +149,29 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
             return;
         }
 
-        @SuppressWarnings("deprecation")
-        OfflinePlayer target = Bukkit.getOfflinePlayer(args[1]);
-
-        if (!target.hasPlayedBefore() && !target.isOnline()) {
-            sender.sendMessage(plugin.getMessage("player-not-found"));
-            return;
-        }
-
-        if (!protectionManager.isProtected(target.getUniqueId())) {
-            sender.sendMessage(plugin.getMessage("player-not-protected"));
-            return;
-        }
+        resolveTarget(sender, args[1], target -> {
+            if (!protectionManager.isProtected(target.uuid())) {
+                sender.sendMessage(plugin.message("player-not-protected").component());
+                return;
+            }
 
-        protectionManager.removeProtection(target.getUniqueId());
-        String name = target.getName() != null ? target.getName() : args[1];
-        sender.sendMessage(plugin.getMessage("player-removed").replace("%player%", name));
+            protectionManager.removeProtection(target.uuid());
+            sender.sendMessage(plugin.message("player-removed").render("%player%", target.name()));
 
-        if (target.isOnline()) {
-            Player onlineTarget = target.getPlayer();
+            Player onlineTarget = Bukkit.getPlayer(target.uuid());
             if (onlineTarget != null) {
-                onlineTarget.sendMessage(plugin.getMessage("protection-expired"));
+                Component message = plugin.message("protection-expired").component();
+                plugin.getTaskScheduler().runForPlayer(onlineTarget,
+                        () -> onlineTarget.sendMessage(message));
             }
-        }
+        });
     }
 
     // ── check ────────────────────────────────────────────────────────────────
 
     private void handleCheck(CommandSender sender, String label, String[] args) {
         if (!sender.hasPermission("newplayerprotection.admin")) {
-            sender.sendMessage(plugin.getMessage("no-permission"));
+            sender.sendMessage(plugin.message("no-permission").component());
             return;
         }
         if (args.length < 2) {
@@ -168,33 +179,24 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
             return;
         }
 
-        @SuppressWarnings("deprecation")
-        OfflinePlayer target = Bukkit.getOfflinePlayer(args[1]);
-
-        if (!target.hasPlayedBefore() && !target.isOnline()) {
-            sender.sendMessage(plugin.getMessage("player-not-found"));
-            return;
-        }
-
-        String name = target.getName() != null ? target.getName() : args[1];
-
-        if (protectionManager.isProtected(target.getUniqueId())) {
-            String time = protectionManager.formatTime(
-                    protectionManager.getRemainingTime(target.getUniqueId()));
-            sender.sendMessage(plugin.getMessage("check-protected")
-                    .replace("%player%", name)
-                    .replace("%time%", time));
-        } else {
-            sender.sendMessage(plugin.getMessage("check-not-protected")
-                    .replace("%player%", name));
-        }
+        resolveTarget(sender, args[1], target -> {
+            if (protectionManager.isProtected(target.uuid())) {
+                String time = protectionManager.formatTime(
+                        protectionManager.getRemainingTime(target.uuid()));
+                sender.sendMessage(plugin.message("check-protected")
+                        .render("%player%", target.name(), "%time%", time));
+            } else {
+                sender.sendMessage(plugin.message("check-not-protected")
+                        .render("%player%", target.name()));
+            }
+        });
     }
 
     // ── stats ────────────────────────────────────────────────────────────────
 
     private void handleStats(CommandSender sender, String label, String[] args) {
         if (!sender.hasPermission("newplayerprotection.stats")) {
-            sender.sendMessage(plugin.getMessage("no-permission"));
+            sender.sendMessage(plugin.message("no-permission").component());
             return;
         }
 
@@ -228,15 +230,9 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
                         NamedTextColor.RED));
                 return;
             }
-            @SuppressWarnings("deprecation")
-            OfflinePlayer target = Bukkit.getOfflinePlayer(args[1]);
-            if (!target.hasPlayedBefore() && !target.isOnline()) {
-                sender.sendMessage(Component.text("Player '" + args[1] + "' not found.",
-                        NamedTextColor.RED));
-                return;
-            }
-            String name = target.getName() != null ? target.getName() : args[1];
-            showPlayerStats(sender, target.getUniqueId(), name);
+            // Offline players may have to be read from disk first when stats are paged
+            resolveTarget(sender, args[1], target -> statsManager.ensureLoaded(target.uuid(),
+                    () -> runFor(sender, () -> showPlayerStats(sender, target.uuid(), target.name()))));
             return;
         }
 
@@ -249,6 +245,239 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
         showPlayerStats(sender, player.getUniqueId(), player.getName());
     }
 
+    // ── bulk ─────────────────────────────────────────────────────────────────
+
+    private void handleBulk(CommandSender sender, String label, String[] args) {
+        if (!sender.hasPermission("newplayerprotection.admin")) {
+            sender.sendMessage(plugin.message("no-permission").component());
+            return;
+        }
+        String source = args.length >= 3 ? args[2].toLowerCase() : "";
+        boolean needsArg = source.equals("joined") || source.equals("file");
+        if (args.length < 3 || !(args[1].equalsIgnoreCase("add") || args[1].equalsIgnoreCase("remove"))
+                || !(needsArg || source.equals("online")) || (needsArg && args.length < 4)) {
+            sender.sendMessage(Component.text("Usage: /" + label
+                    + " bulk <add|remove> <online|joined <duration>|file <name>>", NamedTextColor.RED));
+            return;
+        }
+        boolean grant = args[1].equalsIgnoreCase("add");
+
+        long window = 0;
+        if (source.equals("joined")) {
+            window = parseDuration(args[3]);
+            if (window <= 0) {
+                sender.sendMessage(Component.text("Invalid duration '" + args[3]
+                        + "'. Use e.g. 30m, 12h, 7d or 1d12h.", NamedTextColor.RED));
+                return;
+            }
+        }
+        if (!bulkRunning.compareAndSet(false, true)) {
+            sender.sendMessage(Component.text("Another bulk operation is still running.", NamedTextColor.RED));
+            return;
+        }
+
+        switch (source) {
+            case "online" -> startBulk(sender, grant, Bukkit.getOnlinePlayers().stream()
+                    .map(Player::getUniqueId).toList());
+            case "joined" -> {
+                long cutoff = System.currentTimeMillis() - window;
+                // The offline player list is read from disk, so collect it off-thread
+                plugin.getTaskScheduler().runAsync(() -> {
+                    List<UUID> targets = new ArrayList<>();
+                    for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
+                        if (player.getFirstPlayed() >= cutoff) targets.add(player.getUniqueId());
+                    }
+                    startBulk(sender, grant, targets);
+                });
+            }
+            default -> {
+                String fileName = args[3];
+                plugin.getTaskScheduler().runAsync(() -> {
+                    List<UUID> targets = readPlayerList(sender, fileName);
+                    if (targets == null) {
+                        bulkRunning.set(false);
+                        return;
+                    }
+                    startBulk(sender, grant, targets);
+                });
+            }
+        }
+    }
+
+    /** Hand the targets to a {@link BulkProtectionTask}. Callable from any thread. */
+    private void startBulk(CommandSender sender, boolean grant, List<UUID> targets) {
+        Consumer<Component> reply = message -> runFor(sender, () -> sender.sendMessage(message));
+        if (targets.isEmpty()) {
+            reply.accept(Component.text("No matching players.", NamedTextColor.YELLOW));
+            bulkRunning.set(false);
+            return;
+        }
+        reply.accept(Component.text((grant ? "Granting" : "Removing") + " protection for "
+                + targets.size() + " players...", NamedTextColor.YELLOW));
+        plugin.getTaskScheduler().runGlobal(() -> new BulkProtectionTask(plugin, protectionManager, statsManager,
+                grant, targets, reply, () -> bulkRunning.set(false)).start());
+    }
+
+    /**
+     * Read a player list from the plugin folder: one name or UUID per line, blank lines and
+     * {@code #} comments ignored. Names the index does not know are looked up through the
+     * server, so call this off the main thread. Returns null if the file cannot be read.
+     */
+    private List<UUID> readPlayerList(CommandSender sender, String fileName) {
+        File folder = plugin.getDataFolder();
+        File file = new File(folder, fileName);
+        List<String> lines;
+        try {
+            if (!file.getCanonicalPath().startsWith(folder.getCanonicalPath() + File.separator)) {
+                runFor(sender, () -> sender.sendMessage(Component.text(
+                        "The list must be inside the plugin folder.", NamedTextColor.RED)));
+                return null;
+            }
+            lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            runFor(sender, () -> sender.sendMessage(Component.text(
+                    "Cannot read " + fileName + ": " + e.getMessage(), NamedTextColor.RED)));
+            return null;
+        }
+
+        Set<UUID> targets = new LinkedHashSet<>();
+        List<String> unresolved = new ArrayList<>();
+        NameIndex names = statsManager.getNameIndex();
+        for (String line : lines) {
+            int comment = line.indexOf('#');
+            String entry = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (entry.isEmpty()) continue;
+            try {
+                targets.add(UUID.fromString(entry));
+                continue;
+            } catch (IllegalArgumentException ignored) {
+                // Not a UUID, treat it as a name
+            }
+            NameIndex.Entry known = names.get(entry);
+            if (known != null) {
+                targets.add(known.uuid());
+                continue;
+            }
+            @SuppressWarnings("deprecation")
+            OfflinePlayer player = Bukkit.getOfflinePlayer(entry);
+            if (player.hasPlayedBefore() || player.isOnline()) {
+                names.put(player.getUniqueId(), player.getName() != null ? player.getName() : entry);
+                targets.add(player.getUniqueId());
+            } else {
+                unresolved.add(entry);
+            }
+        }
+
+        if (!unresolved.isEmpty()) {
+            String shown = String.join(", ", unresolved.subList(0, Math.min(10, unresolved.size())));
+            runFor(sender, () -> sender.sendMessage(Component.text(unresolved.size()
+                    + " entries in " + fileName + " were not found: " + shown
+                    + (unresolved.size() > 10 ? ", ..." : ""), NamedTextColor.YELLOW)));
+        }
+        return new ArrayList<>(targets);
+    }
+
+    /** Parse durations like 30m, 12h, 7d or 1d12h. Returns -1 when malformed. */
+    static long parseDuration(String text) {
+        long total = 0;
+        long number = -1;
+        for (char c : text.toLowerCase().toCharArray()) {
+            if (Character.isDigit(c)) {
+                number = (number < 0 ? 0 : number) * 10 + (c - '0');
+                continue;
+            }
+            long unit = switch (c) {
+                case 's' -> 1000L;
+                case 'm' -> 60_000L;
+                case 'h' -> 3_600_000L;
+                case 'd' -> 86_400_000L;
+                case 'w' -> 604_800_000L;
+                default -> -1L;
+            };
+            if (number < 0 || unit < 0) return -1;
+            total += number * unit;
+            number = -1;
+        }
+        return number < 0 && total > 0 ? total : -1;
+    }
+
+    // ── debug ────────────────────────────────────────────────────────────────
+
+    private void handleDebug(CommandSender sender, String label, String[] args) {
+        if (!sender.hasPermission("newplayerprotection.admin")) {
+            sender.sendMessage(plugin.message("no-permission").component());
+            return;
+        }
+        if (args.length < 2 || !args[1].equalsIgnoreCase("metrics")) {
+            sender.sendMessage(Component.text("Usage: /" + label + " debug metrics [reset]",
+                    NamedTextColor.RED));
+            return;
+        }
+
+        Metrics metrics = plugin.getMetrics();
+        if (args.length >= 3 && args[2].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            sender.sendMessage(Component.text("Metrics reset.", NamedTextColor.GREEN));
+            return;
+        }
+
+        sender.sendMessage(Component.text("--- NewPlayerProtection Metrics ---", NamedTextColor.GOLD));
+        String group = null;
+        for (Map.Entry<String, Long> entry : metrics.getMetrics().entrySet()) {
+            String key = entry.getKey();
+            String prefix = key.substring(0, key.indexOf('.'));
+            if (!prefix.equals(group)) {
+                group = prefix;
+                sender.sendMessage(Component.text(" " + group, NamedTextColor.YELLOW));
+            }
+            sender.sendMessage(Component.text("  " + key.substring(prefix.length() + 1) + ": "
+                    + entry.getValue(), NamedTextColor.AQUA));
+        }
+    }
+
+    // ── Player lookup ────────────────────────────────────────────────────────
+
+    /**
+     * Resolve a player name and run {@code then} with the result on the sender's thread.
+     * Online players and names in the local index resolve immediately. Anything else falls
+     * back to {@code Bukkit.getOfflinePlayer(String)} on an async thread, since that may
+     * block on a profile lookup, and the reply follows once it returns.
+     */
+    private void resolveTarget(CommandSender sender, String name, Consumer<NameIndex.Entry> then) {
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) {
+            then.accept(new NameIndex.Entry(online.getUniqueId(), online.getName()));
+            return;
+        }
+        NameIndex.Entry known = statsManager.getNameIndex().get(name);
+        if (known != null) {
+            then.accept(known);
+            return;
+        }
+
+        plugin.getTaskScheduler().runAsync(() -> {
+            @SuppressWarnings("deprecation")
+            OfflinePlayer target = Bukkit.getOfflinePlayer(name);
+            if (!target.hasPlayedBefore() && !target.isOnline()) {
+                runFor(sender, () -> sender.sendMessage(plugin.message("player-not-found").component()));
+                return;
+            }
+            String resolved = target.getName() != null ? target.getName() : name;
+            statsManager.getNameIndex().put(target.getUniqueId(), resolved);
+            NameIndex.Entry entry = new NameIndex.Entry(target.getUniqueId(), resolved);
+            runFor(sender, () -> then.accept(entry));
+        });
+    }
+
+    /** Run on the sender's thread: the player's region for players, the global thread otherwise. */
+    private void runFor(CommandSender sender, Runnable task) {
+        if (sender instanceof Player player) {
+            plugin.getTaskScheduler().runForPlayer(player, task);
+        } else {
+            plugin.getTaskScheduler().runGlobal(task);
+        }
+    }
+
     private void showPlayerStats(CommandSender sender, java.util.UUID uuid, String name) {
         sender.sendMessage(Component.text("--- " + name + "'s Protection Stats ---",
                 NamedTextColor.GOLD));
@@ -256,6 +485,10 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
                 + statsManager.getPlayerStat(uuid, "attacks_blocked"), NamedTextColor.AQUA));
         sender.sendMessage(Component.text("  Attacks Prevented: "
                 + statsManager.getPlayerStat(uuid, "attacks_prevented"), NamedTextColor.AQUA));
+        sender.sendMessage(Component.text("  Blocked (last hour / day / week): "
+                + statsManager.getPlayerStat(uuid, "attacks_blocked_1h") + " / "
+                + statsManager.getPlayerStat(uuid, "attacks_blocked_1d") + " / "
+                + statsManager.getPlayerStat(uuid, "attacks_blocked_1w"), NamedTextColor.AQUA));
 
         // Protection time remaining (computed, if protected)
         long remaining = protectionManager.getRemainingTime(uuid);
@@ -271,6 +504,8 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
         sender.sendMessage(Component.text("--- Global ---", NamedTextColor.GOLD));
         sender.sendMessage(Component.text("  Total Attacks Blocked: "
                 + statsManager.getGlobalStat("total_attacks_blocked"), NamedTextColor.YELLOW));
+        sender.sendMessage(Component.text("  Blocked in the Last Hour: "
+                + statsManager.getGlobalStat("total_attacks_blocked_1h"), NamedTextColor.YELLOW));
         sender.sendMessage(Component.text("  Currently Protected: "
                 + statsManager.getGlobalStat("total_players_protected"), NamedTextColor.YELLOW));
         sender.sendMessage(Component.text("  Total Ever Protected: "
@@ -294,6 +529,10 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
                     NamedTextColor.YELLOW));
             sender.sendMessage(Component.text("  /" + label + " check <player>  - Check a player's status",
                     NamedTextColor.YELLOW));
+            sender.sendMessage(Component.text("  /" + label + " bulk <add|remove> <online|joined <time>|file <name>>",
+                    NamedTextColor.YELLOW));
+            sender.sendMessage(Component.text("  /" + label + " debug metrics   - Show plugin timings and sizes",
+                    NamedTextColor.YELLOW));
         }
     }
 
@@ -306,7 +545,7 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
             options.add("me");
             options.add("stats");
             if (sender.hasPermission("newplayerprotection.admin")) {
-                options.addAll(Arrays.asList("reload", "add", "remove", "check"));
+                options.addAll(Arrays.asList("reload", "add", "remove", "check", "bulk", "debug"));
             }
             return options.stream()
                     .filter(s -> s.startsWith(args[0].toLowerCase()))
@@ -316,26 +555,57 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
         if (args.length == 2) {
             String sub = args[0].toLowerCase();
 
-            // Admin subcommands: tab-complete online player names
+            // Admin subcommands: tab-complete every known player, protected ones first
+            // for the subcommands that only make sense on them
             if (sender.hasPermission("newplayerprotection.admin")
                     && (sub.equals("add") || sub.equals("remove") || sub.equals("check"))) {
-                return Bukkit.getOnlinePlayers().stream()
-                        .map(Player::getName)
-                        .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
+                return completeNames(args[1], !sub.equals("add"));
+            }
+
+            if (sub.equals("bulk") && sender.hasPermission("newplayerprotection.admin")) {
+                return List.of("add", "remove").stream()
+                        .filter(s -> s.startsWith(args[1].toLowerCase()))
                         .collect(Collectors.toList());
             }
 
-            // Stats: tab-complete "top" and online player names
+            if (sub.equals("debug") && sender.hasPermission("newplayerprotection.admin")) {
+                return "metrics".startsWith(args[1].toLowerCase()) ? List.of("metrics") : List.of();
+            }
+
+            // Stats: tab-complete "top" and known player names
             if (sub.equals("stats")) {
                 List<String> options = new ArrayList<>();
-                options.add("top");
-                for (Player p : Bukkit.getOnlinePlayers()) {
-                    options.add(p.getName());
-                }
-                return options.stream()
-                        .filter(s -> s.toLowerCase().startsWith(args[1].toLowerCase()))
+                if ("top".startsWith(args[1].toLowerCase())) options.add("top");
+                options.addAll(completeNames(args[1], false));
+                return options;
+            }
+        }
+
+        if (args[0].equalsIgnoreCase("bulk") && sender.hasPermission("newplayerprotection.admin")) {
+            if (args.length == 3) {
+                return BULK_SOURCES.stream()
+                        .filter(s -> s.startsWith(args[2].toLowerCase()))
+                        .collect(Collectors.toList());
+            }
+            if (args.length == 4 && args[2].equalsIgnoreCase("joined")) {
+                return List.of("1h", "1d", "7d").stream()
+                        .filter(s -> s.startsWith(args[3].toLowerCase()))
                         .collect(Collectors.toList());
             }
+            if (args.length == 4 && args[2].equalsIgnoreCase("file")) {
+                String[] files = plugin.getDataFolder().list((dir, name) -> name.endsWith(".txt"));
+                if (files == null) return List.of();
+                return Arrays.stream(files)
+                        .filter(s -> s.toLowerCase().startsWith(args[3].toLowerCase()))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            return List.of();
+        }
+
+        if (args.length == 3 && args[0].equalsIgnoreCase("debug")
+                && sender.hasPermission("newplayerprotection.admin")) {
+            return "reset".startsWith(args[2].toLowerCase()) ? List.of("reset") : List.of();
         }
 
         if (args.length == 3 && args[0].equalsIgnoreCase("stats")
@@ -347,4 +617,46 @@ public class NewPlayerProtectionCommand implements CommandExecutor, TabCompleter
 
         return List.of();
     }
+
+    private void protectionChanged(UUID uuid) {
+        if (uuid == null) {
+            protectedNames.clear();
+            unnamedProtected.clear();
+            unnamedProtected.addAll(protectionManager.getProtectedPlayers());
+        } else if (protectionManager.isProtected(uuid)) {
+            unnamedProtected.add(uuid); // picks up a changed name too
+        } else {
+            unnamedProtected.remove(uuid);
+            protectedNames.remove(uuid);
+        }
+    }
+
+    /**
+     * Index queued protected players whose names are known by now. Usually empty; after a
+     * reload it holds everyone until the first completion, or until their names are found.
+     */
+    private void indexProtectedNames(NameIndex names) {
+        if (unnamedProtected.isEmpty()) return;
+        for (UUID uuid : unnamedProtected) {
+            String name = names.name(uuid);
+            if (name == null) continue;
+            unnamedProtected.remove(uuid);
+            if (protectionManager.isProtected(uuid)) protectedNames.put(uuid, name);
+        }
+    }
+
+    /** Known names starting with {@code prefix}, optionally with protected players listed first. */
+    private List<String> completeNames(String prefix, boolean protectedFirst) {
+        NameIndex names = statsManager.getNameIndex();
+        Set<String> result = new LinkedHashSet<>();
+        if (protectedFirst) {
+            indexProtectedNames(names);
+            result.addAll(protectedNames.complete(prefix, MAX_COMPLETIONS));
+        }
+        for (String name : names.complete(prefix, MAX_COMPLETIONS)) {
+            if (result.size() >= MAX_COMPLETIONS) break;
+            result.add(name);
+        }
+        return new ArrayList<>(result);
+    }
 }
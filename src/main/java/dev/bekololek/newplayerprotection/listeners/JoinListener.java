@@ -23,27 +23,35 @@ public class JoinListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerJoin(PlayerJoinEvent event) {
+        long start = plugin.getMetrics().start();
+        try {
+            handleJoin(event);
+        } finally {
+            plugin.getMetrics().joinEvents().recordSince(start);
+        }
+    }
+
+    private void handleJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
         // Update cached name in stats
         statsManager.updateName(player);
+        protectionManager.playerJoined(player);
 
         if (!player.hasPlayedBefore()) {
             // Brand new player — grant protection
             protectionManager.addProtection(player);
             statsManager.recordNewProtection();
 
-            long hours = plugin.getConfig().getLong("protection-duration-hours", 72);
-            String message = plugin.getMessage("protection-granted")
-                    .replace("%hours%", String.valueOf(hours));
-            player.sendMessage(message);
+            long hours = plugin.getSettings().protectionDurationHours();
+            player.sendMessage(plugin.message("protection-granted")
+                    .render("%hours%", String.valueOf(hours)));
         } else if (protectionManager.isProtected(player)) {
             // Returning player with active protection — show remaining time
             String timeRemaining = protectionManager.formatTime(
                     protectionManager.getRemainingTime(player));
-            String message = plugin.getMessage("protection-active")
-                    .replace("%time%", timeRemaining);
-            player.sendMessage(message);
+            player.sendMessage(plugin.message("protection-active")
+                    .render("%time%", timeRemaining));
         }
     }
 }
@@ -3,27 +3,65 @@ package dev.bekololek.newplayerprotection.listeners;
 import dev.bekololek.newplayerprotection.Main;
 import dev.bekololek.newplayerprotection.managers.ProtectionManager;
 import dev.bekololek.newplayerprotection.managers.StatsManager;
+import dev.bekololek.newplayerprotection.util.NotificationCoalescer;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Projectile;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PvPListener implements Listener {
 
+    private static final String BYPASS_PERMISSION = "newplayerprotection.bypass";
+
     private final Main plugin;
     private final ProtectionManager protectionManager;
     private final StatsManager statsManager;
+    private final NotificationCoalescer notifications;
+
+    // Cached bypass permission per player. Bukkit has no permission-change event, so entries
+    // are dropped when the server resends a player's command list (which permission plugins
+    // trigger after recalculating), on world change and on quit, and otherwise time out.
+    private final Map<UUID, Bypass> bypassCache = new ConcurrentHashMap<>();
+
+    private record Bypass(boolean allowed, long expiresAt) {}
 
     public PvPListener(Main plugin, ProtectionManager protectionManager, StatsManager statsManager) {
         this.plugin = plugin;
         this.protectionManager = protectionManager;
         this.statsManager = statsManager;
+        this.notifications = new NotificationCoalescer(plugin);
+    }
+
+    /** Forget every cached permission. Called on plugin reload. */
+    public void reload() {
+        bypassCache.clear();
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onEntityDamageByEntity(EntityDamageByEntityEvent event) {
+        long start = plugin.getMetrics().start();
+        try {
+            handleDamage(event);
+        } finally {
+            plugin.getMetrics().damageEvents().recordSince(start);
+        }
+    }
+
+    private void handleDamage(EntityDamageByEntityEvent event) {
+        // Nobody online is protected: nothing to block
+        if (!protectionManager.hasOnlineProtected()) {
+            return;
+        }
+
         if (!(event.getEntity() instanceof Player victim)) {
             return;
         }
@@ -34,14 +72,14 @@ public class PvPListener implements Listener {
         }
 
         // Bypass permission allows attacking anyone and being attacked
-        if (attacker.hasPermission("newplayerprotection.bypass")) {
+        if (hasBypass(attacker)) {
             return;
         }
 
         // Protected attacker cannot deal PvP damage
         if (protectionManager.isProtected(attacker)) {
             event.setCancelled(true);
-            attacker.sendMessage(plugin.getMessage("you-are-protected"));
+            notifications.send(attacker, plugin.message("you-are-protected").component());
             statsManager.recordAttackPrevented(attacker.getUniqueId(), attacker.getName());
             return;
         }
@@ -49,11 +87,39 @@ public class PvPListener implements Listener {
         // Protected victim cannot receive PvP damage
         if (protectionManager.isProtected(victim)) {
             event.setCancelled(true);
-            attacker.sendMessage(plugin.getMessage("cannot-hit-protected"));
+            notifications.send(attacker, plugin.message("cannot-hit-protected").component());
             statsManager.recordAttackBlocked(victim.getUniqueId(), victim.getName());
         }
     }
 
+    private boolean hasBypass(Player player) {
+        long now = System.currentTimeMillis();
+        Bypass cached = bypassCache.get(player.getUniqueId());
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.allowed();
+        }
+        boolean allowed = player.hasPermission(BYPASS_PERMISSION);
+        bypassCache.put(player.getUniqueId(), new Bypass(allowed, now + plugin.getSettings().bypassCacheMillis()));
+        return allowed;
+    }
+
+    // ── Bypass cache invalidation ────────────────────────────────────────────
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onCommandSend(PlayerCommandSendEvent event) {
+        bypassCache.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        bypassCache.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        bypassCache.remove(event.getPlayer().getUniqueId());
+    }
+
     /**
      * Resolve the attacking player from direct melee or projectile damage.
      */
@@ -0,0 +1,25 @@
+package dev.bekololek.newplayerprotection.listeners;
+
+import dev.bekololek.newplayerprotection.managers.ProtectionManager;
+import dev.bekololek.newplayerprotection.managers.StatsManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class QuitListener implements Listener {
+
+    private final ProtectionManager protectionManager;
+    private final StatsManager statsManager;
+
+    public QuitListener(ProtectionManager protectionManager, StatsManager statsManager) {
+        this.protectionManager = protectionManager;
+        this.statsManager = statsManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        protectionManager.playerQuit(event.getPlayer());
+        statsManager.playerQuit(event.getPlayer());
+    }
+}
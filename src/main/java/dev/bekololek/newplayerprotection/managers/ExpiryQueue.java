@@ -0,0 +1,42 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Min-heap of protection deadlines, drained once per tick by {@link ProtectionManager}.
+ * <p>
+ * Entries are never removed eagerly. When a protection is revoked or re-granted the old
+ * deadline stays queued and is discarded on poll because it no longer matches the
+ * stored expiry. Grants can come from any region thread under Folia, so access is synchronized.
+ */
+class ExpiryQueue {
+
+    record Deadline(long expiry, UUID uuid) implements Comparable<Deadline> {
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(expiry, other.expiry);
+        }
+    }
+
+    private final PriorityQueue<Deadline> queue = new PriorityQueue<>();
+
+    synchronized void schedule(UUID uuid, long expiry) {
+        queue.add(new Deadline(expiry, uuid));
+    }
+
+    /** Remove and return the earliest deadline if it is due at {@code now}, else null. */
+    synchronized Deadline pollDue(long now) {
+        Deadline head = queue.peek();
+        if (head == null || head.expiry() > now) return null;
+        return queue.poll();
+    }
+
+    synchronized void clear() {
+        queue.clear();
+    }
+
+    synchronized int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,100 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.util.Arrays;
+
+/**
+ * Descending ranking of every player in a {@link StatsStore} by one stat column.
+ * <p>
+ * Counters only ever grow. An increment first swaps the player with the head of their tie
+ * block, then finds by binary search the first rank holding less than the new value and
+ * shifts the players in between down by one. Those are only the players whose value lies
+ * strictly between the old and the new one, so a one-step increment is a swap and a
+ * larger one never walks a long run of equal counters. Rank lookups are a plain array read.
+ */
+final class LeaderboardIndex {
+
+    private final StatsStore store;
+    private final int column;
+    private int[] order = new int[64]; // rank -> id
+    private int[] rank = new int[64];  // id -> rank
+    private int size;
+
+    LeaderboardIndex(StatsStore store, int column) {
+        this.store = store;
+        this.column = column;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Id of the player at the given zero-based rank. */
+    int idAt(int position) {
+        return order[position];
+    }
+
+    /** Register a newly allocated id whose counter is still zero. */
+    void append(int id) {
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        if (id >= rank.length) {
+            rank = Arrays.copyOf(rank, Math.max(id + 1, rank.length * 2));
+        }
+        order[size] = id;
+        rank[id] = size;
+        size++;
+    }
+
+    /** Add a positive {@code delta} to the player's counter in the store and keep the ranking sorted. */
+    void increment(int id, int delta) {
+        int value = store.get(column, id);
+        int r = rank[id];
+        int head = firstRankAtMost(value, r);
+        if (head != r) {
+            int other = order[head];
+            order[head] = id;
+            order[r] = other;
+            rank[id] = head;
+            rank[other] = r;
+        }
+        int updated = value + delta;
+        int first = firstRankAtMost(updated - 1, head);
+        if (first != head) {
+            System.arraycopy(order, first, order, first + 1, head - first);
+            order[first] = id;
+            for (int i = first; i <= head; i++) rank[order[i]] = i;
+        }
+        store.set(column, id, updated);
+    }
+
+    /** Re-sort from scratch after counters were set directly, e.g. on load. */
+    void rebuild() {
+        Integer[] ids = new Integer[store.size()];
+        for (int id = 0; id < ids.length; id++) ids[id] = id;
+        Arrays.sort(ids, (a, b) -> Integer.compare(store.get(column, b), store.get(column, a)));
+
+        order = new int[Math.max(64, ids.length)];
+        rank = new int[order.length];
+        size = ids.length;
+        for (int r = 0; r < size; r++) {
+            order[r] = ids[r];
+            rank[ids[r]] = r;
+        }
+    }
+
+    /** Lowest rank in [0, upper] whose value is at most {@code value}; ranks are sorted descending. */
+    private int firstRankAtMost(int value, int upper) {
+        int lo = 0;
+        int hi = upper;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (store.get(column, order[mid]) > value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
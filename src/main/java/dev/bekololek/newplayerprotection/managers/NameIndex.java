@@ -0,0 +1,179 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Case-insensitive name → UUID lookup for every player the plugin has seen.
+ * <p>
+ * Filled from the names {@link StatsManager} stores and kept current from joins, so
+ * commands can resolve a name without {@code Bukkit.getOfflinePlayer(String)}, which may
+ * block on a profile lookup for names the server does not know.
+ * <p>
+ * Tab completion runs a prefix query on every keystroke, so the lowercase names are also
+ * kept in a sorted array: a binary search finds the first match and the matches follow it
+ * contiguously. A new name is inserted at its place right away, a bulk load is sorted once
+ * and merged in, and dropped names stay behind, skipped by queries, until they outnumber the
+ * live ones. Nothing on the query path ever sorts.
+ */
+public class NameIndex {
+
+    public record Entry(UUID uuid, String name) {}
+
+    private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+    private final Map<UUID, String> byUuid = new ConcurrentHashMap<>();
+
+    private volatile String[] sorted = new String[0]; // replaced, never modified; written under this
+
+    /** Record a player's current name, dropping the mapping of their previous one. */
+    public void put(UUID uuid, String name) {
+        String added = map(uuid, name);
+        if (added != null) insert(added);
+    }
+
+    /**
+     * Index many players at once, sorting their new names together instead of inserting each.
+     * Players already indexed keep their name; a stored name may be older than one seen joining.
+     */
+    public void putAll(Collection<Entry> entries) {
+        List<String> added = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (byUuid.containsKey(entry.uuid())) continue;
+            String key = map(entry.uuid(), entry.name());
+            if (key != null) added.add(key);
+        }
+        if (added.isEmpty()) return;
+        String[] keys = added.toArray(new String[0]);
+        Arrays.sort(keys);
+        merge(keys);
+    }
+
+    /** Update the maps. Returns the key if no player held that name before, otherwise null. */
+    private String map(UUID uuid, String name) {
+        String key = key(name);
+        String previous = byUuid.put(uuid, key);
+        if (previous != null && !previous.equals(key)) {
+            Entry old = byName.get(previous);
+            if (old != null && old.uuid().equals(uuid)) byName.remove(previous, old);
+        }
+        // A name taken over from a renamed player maps to the newest owner
+        Entry replaced = byName.put(key, new Entry(uuid, name));
+        // Only a new name can be missing from the sorted array
+        return replaced == null ? key : null;
+    }
+
+    /** Drop a player and their name. */
+    public void remove(UUID uuid) {
+        String key = byUuid.remove(uuid);
+        if (key == null) return;
+        Entry entry = byName.get(key);
+        if (entry != null && entry.uuid().equals(uuid)) byName.remove(key, entry);
+        if (sorted.length > 2 * byName.size() + 64) compact();
+    }
+
+    public synchronized void clear() {
+        byUuid.clear();
+        byName.clear();
+        sorted = new String[0];
+    }
+
+    /** The player last seen with this name, ignoring case, or null. */
+    public Entry get(String name) {
+        return byName.get(key(name));
+    }
+
+    /** Current name of a player, or null if they are not indexed. */
+    public String name(UUID uuid) {
+        String key = byUuid.get(uuid);
+        if (key == null) return null;
+        Entry entry = byName.get(key);
+        return entry != null && entry.uuid().equals(uuid) ? entry.name() : null;
+    }
+
+    /**
+     * Index players known only by UUID, using the server's cached profile names. Players
+     * that are already indexed are skipped. Call off the main thread.
+     */
+    public void putOffline(Collection<UUID> uuids) {
+        List<Entry> found = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            if (byUuid.containsKey(uuid)) continue;
+            OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+            if (player.getName() != null) found.add(new Entry(uuid, player.getName()));
+        }
+        putAll(found);
+    }
+
+    // ── Prefix search ────────────────────────────────────────────────────────
+
+    /** Up to {@code limit} names starting with {@code prefix}, ignoring case, in alphabetical order. */
+    public List<String> complete(String prefix, int limit) {
+        String[] keys = sorted;
+        String p = key(prefix);
+        int i = Arrays.binarySearch(keys, p);
+        if (i < 0) i = -i - 1;
+
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (; i < keys.length && result.size() < limit && keys[i].startsWith(p); i++) {
+            Entry entry = byName.get(keys[i]);
+            if (entry != null) result.add(entry.name());
+        }
+        return result;
+    }
+
+    /** Insert one key at its place. A key dropped earlier may still be there. */
+    private synchronized void insert(String key) {
+        String[] keys = sorted;
+        int i = Arrays.binarySearch(keys, key);
+        if (i >= 0) return;
+        i = -i - 1;
+        String[] grown = new String[keys.length + 1];
+        System.arraycopy(keys, 0, grown, 0, i);
+        grown[i] = key;
+        System.arraycopy(keys, i, grown, i + 1, keys.length - i);
+        sorted = grown;
+    }
+
+    /** Merge sorted keys into the array in one pass, skipping keys it already has. */
+    private synchronized void merge(String[] added) {
+        String[] keys = sorted;
+        String[] merged = new String[keys.length + added.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < keys.length || j < added.length) {
+            String next = j == added.length || (i < keys.length && keys[i].compareTo(added[j]) <= 0)
+                    ? keys[i++] : added[j++];
+            if (n == 0 || !merged[n - 1].equals(next)) merged[n++] = next;
+        }
+        sorted = n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    /** Drop keys that no longer map to a player. Keeps the order, so no sort is needed. */
+    private synchronized void compact() {
+        String[] keys = sorted;
+        String[] live = new String[keys.length];
+        int n = 0;
+        for (String key : keys) {
+            if (byName.containsKey(key)) live[n++] = key;
+        }
+        sorted = Arrays.copyOf(live, n);
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
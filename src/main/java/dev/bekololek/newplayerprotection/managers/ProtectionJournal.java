@@ -0,0 +1,259 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import dev.bekololek.newplayerprotection.Main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Append-only mutation log for {@link ProtectionManager}.
+ * <p>
+ * Every grant and removal is written to {@code data.journal} as one fixed-size record, so a
+ * mutation costs a single small write instead of a full {@code data.yml} rewrite. All I/O runs
+ * on one writer thread, which keeps records in submission order. Once the journal holds more
+ * than the configured number of records it is folded into the {@code data.yml} snapshot on that
+ * same thread and truncated.
+ */
+class ProtectionJournal implements ProtectionStorage {
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    /** op (1) + uuid msb (8) + uuid lsb (8) + expiry (8) */
+    private static final int RECORD_SIZE = 25;
+
+    private final Main plugin;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final int compactThreshold;
+    private final ExecutorService writer;
+
+    // Owned by the writer thread
+    private DataOutputStream out;
+    private int records;
+
+    ProtectionJournal(Main plugin, File snapshotFile, int compactThreshold) {
+        this.plugin = plugin;
+        this.snapshotFile = snapshotFile;
+        this.journalFile = new File(snapshotFile.getParentFile(), "data.journal");
+        this.compactThreshold = Math.max(1, compactThreshold);
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "NewPlayerProtection-Journal");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // ── Load ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Read the snapshot and replay the journal tail on top of it. Blocks until all
+     * previously submitted writes have reached the file.
+     */
+    @Override
+    public Map<UUID, Long> load() {
+        return submitAndWait(() -> {
+            closeStream();
+            Map<UUID, Long> map = readSnapshotAndJournal();
+            records = countRecords();
+            return map;
+        });
+    }
+
+    private Map<UUID, Long> readSnapshotAndJournal() throws IOException {
+        Map<UUID, Long> map = snapshotFile.exists()
+                ? YamlProtectionStorage.readSnapshot(plugin, snapshotFile)
+                : new HashMap<>();
+        if (!journalFile.exists()) return map;
+
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(journalFile)))) {
+            while (true) {
+                byte op;
+                UUID uuid;
+                long expiry;
+                try {
+                    op = in.readByte();
+                    uuid = new UUID(in.readLong(), in.readLong());
+                    expiry = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                switch (op) {
+                    case OP_PUT -> map.put(uuid, expiry);
+                    case OP_REMOVE -> map.remove(uuid);
+                    default -> plugin.getLogger().warning("Unknown record type " + op + " in data.journal");
+                }
+                valid += RECORD_SIZE;
+            }
+        }
+
+        // Drop a record torn by a crash so new appends stay aligned
+        if (journalFile.length() != valid) {
+            plugin.getLogger().warning("Discarding incomplete trailing record in data.journal.");
+            try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+                raf.setLength(valid);
+            }
+        }
+        return map;
+    }
+
+    private int countRecords() {
+        return journalFile.exists() ? (int) (journalFile.length() / RECORD_SIZE) : 0;
+    }
+
+    // ── Append ───────────────────────────────────────────────────────────────
+
+    @Override
+    public void put(UUID uuid, long expiry) {
+        writer.execute(plugin.getMetrics().trackSave(() -> {
+            try {
+                writeRecord(OP_PUT, uuid, expiry);
+                finishAppend();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to append to data.journal", e);
+            }
+        }));
+    }
+
+    /** Append one record per grant, flushed to the file in a single write. */
+    @Override
+    public void putAll(Map<UUID, Long> entries) {
+        if (entries.isEmpty()) return;
+        Map<UUID, Long> copy = Map.copyOf(entries);
+        writer.execute(plugin.getMetrics().trackSave(() -> {
+            try {
+                for (Map.Entry<UUID, Long> entry : copy.entrySet()) {
+                    writeRecord(OP_PUT, entry.getKey(), entry.getValue());
+                }
+                finishAppend();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to append to data.journal", e);
+            }
+        }));
+    }
+
+    /** Append one removal record per UUID, flushed to the file in a single write. */
+    @Override
+    public void removeAll(Collection<UUID> uuids) {
+        List<UUID> copy = List.copyOf(uuids);
+        writer.execute(plugin.getMetrics().trackSave(() -> {
+            try {
+                for (UUID uuid : copy) {
+                    writeRecord(OP_REMOVE, uuid, 0L);
+                }
+                finishAppend();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to append to data.journal", e);
+            }
+        }));
+    }
+
+    private void writeRecord(byte op, UUID uuid, long expiry) throws IOException {
+        if (out == null) {
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(journalFile, true), RECORD_SIZE * 64));
+        }
+        out.writeByte(op);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+        out.writeLong(expiry);
+        records++;
+    }
+
+    private void finishAppend() throws IOException {
+        out.flush();
+        if (records >= compactThreshold) {
+            compact();
+        }
+    }
+
+    // ── Compaction ───────────────────────────────────────────────────────────
+
+    /** Queue a compaction behind any pending appends. Nothing to do if none were made. */
+    @Override
+    public void checkpoint() {
+        writer.execute(plugin.getMetrics().trackSave(() -> {
+            if (records == 0) return;
+            try {
+                compact();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to compact data.journal", e);
+            }
+        }));
+    }
+
+    /** Fold the journal into the snapshot and truncate it. Writer thread only. */
+    private void compact() throws IOException {
+        closeStream();
+        Map<UUID, Long> map = readSnapshotAndJournal();
+        long now = System.currentTimeMillis();
+        map.values().removeIf(value -> !ProtectionStorage.isLive(value, now));
+        long start = System.nanoTime();
+        YamlProtectionStorage.writeSnapshot(map, snapshotFile);
+        plugin.getMetrics().recordSave(snapshotFile, start);
+        new FileOutputStream(journalFile, false).close();
+        records = 0;
+    }
+
+    private void closeStream() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    /** Compact one last time and stop the writer thread. Blocks until done. */
+    @Override
+    public void close() {
+        submitAndWait(() -> {
+            compact();
+            closeStream();
+            return null;
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for data.journal writer to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ── Helpers ──────────────────────────────────────────────────────────────
+
+    private interface IOTask<T> {
+        T run() throws IOException;
+    }
+
+    private <T> T submitAndWait(IOTask<T> task) {
+        try {
+            return writer.submit(() -> task.run()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for data.journal", e);
+        } catch (ExecutionException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to access data.journal", e.getCause());
+            return null;
+        }
+    }
+}
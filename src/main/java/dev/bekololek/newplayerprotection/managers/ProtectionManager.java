@@ -1,131 +1,282 @@
 package dev.bekololek.newplayerprotection.managers;
 
 import dev.bekololek.newplayerprotection.Main;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.YamlConfiguration;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.logging.Level;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Tracks which players are protected and until when.
+ * <p>
+ * Protection state lives in a {@link ConcurrentHashMap}, so {@link #isProtected(UUID)} is a
+ * lock-free read from any region thread under Folia. The subset of protected players that
+ * are online is kept separately so the damage listener can skip all work when it is empty.
+ * <p>
+ * Under the playtime countdown the map holds each player's remaining time as of their last
+ * session change instead of an expiry. Joining opens a session and arms a deadline; quitting
+ * subtracts the time played. Offline players have no deadline, so nothing is ever scanned.
+ */
 public class ProtectionManager {
 
     private final Main plugin;
-    private final File dataFile;
-    private final Map<UUID, Long> protectedPlayers = new HashMap<>();
-
-    public ProtectionManager(Main plugin) {
+    private final Map<UUID, Long> protectedPlayers = new ConcurrentHashMap<>();
+    private final Set<UUID> onlineProtected = ConcurrentHashMap.newKeySet();
+    private final ExpiryQueue expiryQueue = new ExpiryQueue();
+    private final ProtectionStorage storage;
+    private final List<Consumer<UUID>> changeListeners = new CopyOnWriteArrayList<>();
+    private final Set<BulkEdit> openEdits = ConcurrentHashMap.newKeySet();
+    /** Playtime countdown only: session start of each online protected player. */
+    private final Map<UUID, Long> sessions = new ConcurrentHashMap<>();
+    private volatile boolean playtime;
+
+    /** {@code sqlStorage} is the open database when {@code storage.type} is SQL, else null. */
+    public ProtectionManager(Main plugin, SqlStorage sqlStorage) {
         this.plugin = plugin;
-        this.dataFile = new File(plugin.getDataFolder(), "data.yml");
+        File dataFile = new File(plugin.getDataFolder(), "data.yml");
+        if (sqlStorage != null) {
+            this.storage = sqlStorage.protections();
+        } else if (plugin.getSettings().journal()) {
+            this.storage = new ProtectionJournal(plugin, dataFile,
+                    plugin.getSettings().journalCompactThreshold());
+        } else {
+            this.storage = new YamlProtectionStorage(plugin, dataFile);
+        }
     }
 
     // ── Load / Save ──────────────────────────────────────────────────────────
 
     public void loadData() {
+        // Keep the time played so far before the sessions are dropped on reload
+        bankSessions();
         protectedPlayers.clear();
-
-        if (!dataFile.exists()) {
-            plugin.getLogger().info("No data.yml found, starting fresh.");
-            return;
+        onlineProtected.clear();
+        sessions.clear();
+        expiryQueue.clear();
+        playtime = plugin.getSettings().playtimeCountdown();
+
+        Map<UUID, Long> loaded = storage.load();
+        if (loaded != null) {
+            protectedPlayers.putAll(loaded);
+            convertStored();
+        }
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            playerJoined(player);
         }
 
-        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(dataFile);
-        ConfigurationSection section = yaml.getConfigurationSection("protected-players");
-        if (section == null) return;
-
-        long now = System.currentTimeMillis();
-        for (String uuidStr : section.getKeys(false)) {
-            UUID uuid;
-            try {
-                uuid = UUID.fromString(uuidStr);
-            } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("Invalid UUID in data.yml: " + uuidStr);
-                continue;
-            }
-
-            long expiry = section.getLong(uuidStr);
-            if (expiry > now) {
-                protectedPlayers.put(uuid, expiry);
+        if (!playtime) {
+            for (Map.Entry<UUID, Long> entry : protectedPlayers.entrySet()) {
+                expiryQueue.schedule(entry.getKey(), entry.getValue());
             }
         }
-
+        fireChange(null);
         plugin.getLogger().info("Loaded " + protectedPlayers.size() + " protected players.");
     }
 
-    public void saveData() {
-        saveToYaml(true);
+    /**
+     * Bring the stored data up to date in the background every 5 minutes: compacts the
+     * journal or prunes expired rows, depending on the storage type. Changes themselves are
+     * persisted as they happen.
+     */
+    public void startAutoSave() {
+        long period = 6000L; // every 5 minutes
+        plugin.getTaskScheduler().runTimer(storage::checkpoint, period, period);
     }
 
-    /** Synchronous save for use during onDisable when async tasks cannot be scheduled. */
-    public void saveDataSync() {
-        saveToYaml(false);
+    /** Flush everything to storage and release it. Call once from onDisable. */
+    public void shutdown() {
+        // A bulk operation cut short by the shutdown still keeps what it applied so far
+        for (BulkEdit edit : List.copyOf(openEdits)) edit.commit();
+        bankSessions();
+        storage.close();
     }
 
-    private void saveToYaml(boolean async) {
-        // Clean up expired entries before saving
+    /**
+     * Re-encode values stored under the other countdown: expiry timestamps become remaining
+     * playtime and the other way round. Protections that ran out meanwhile are dropped.
+     */
+    private void convertStored() {
         long now = System.currentTimeMillis();
-        Iterator<Map.Entry<UUID, Long>> it = protectedPlayers.entrySet().iterator();
-        while (it.hasNext()) {
-            if (it.next().getValue() <= now) {
-                it.remove();
+        Map<UUID, Long> converted = new HashMap<>();
+        List<UUID> lapsed = new ArrayList<>();
+        for (Map.Entry<UUID, Long> entry : protectedPlayers.entrySet()) {
+            long value = entry.getValue();
+            if ((value < ProtectionStorage.PLAYTIME_LIMIT) == playtime) continue;
+            if (!playtime) {
+                converted.put(entry.getKey(), now + value);
+            } else if (value > now) {
+                converted.put(entry.getKey(), value - now);
+            } else {
+                lapsed.add(entry.getKey());
             }
         }
+        if (converted.isEmpty() && lapsed.isEmpty()) return;
+
+        protectedPlayers.putAll(converted);
+        protectedPlayers.keySet().removeAll(lapsed);
+        if (!converted.isEmpty()) storage.putAll(converted);
+        if (!lapsed.isEmpty()) storage.removeAll(lapsed);
+        plugin.getLogger().info("Converted " + converted.size() + " protections to the "
+                + (playtime ? "playtime" : "realtime") + " countdown.");
+    }
 
-        YamlConfiguration yaml = new YamlConfiguration();
-        for (Map.Entry<UUID, Long> entry : protectedPlayers.entrySet()) {
-            yaml.set("protected-players." + entry.getKey().toString(), entry.getValue());
-        }
-
-        if (async) {
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    try {
-                        yaml.save(dataFile);
-                    } catch (IOException e) {
-                        plugin.getLogger().log(Level.SEVERE, "Failed to save data.yml", e);
-                    }
-                }
-            }.runTaskAsynchronously(plugin);
-        } else {
-            try {
-                yaml.save(dataFile);
-            } catch (IOException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to save data.yml", e);
+    // ── Expiry ───────────────────────────────────────────────────────────────
+
+    /** Start the per-tick task that expires due protections (global region thread on Folia). */
+    public void startExpiryTask() {
+        plugin.getTaskScheduler().runTimer(this::expireDue, 1L, 1L);
+    }
+
+    /**
+     * Remove every protection whose deadline has passed, notify the affected players
+     * that are online, and persist all removals in one batch.
+     */
+    private void expireDue() {
+        long now = System.currentTimeMillis();
+        List<UUID> expired = null;
+
+        ExpiryQueue.Deadline deadline;
+        while ((deadline = expiryQueue.pollDue(now)) != null) {
+            if (!expire(deadline)) continue;
+
+            onlineProtected.remove(deadline.uuid());
+            if (expired == null) expired = new ArrayList<>();
+            expired.add(deadline.uuid());
+        }
+        if (expired == null) return;
+
+        storage.removeAll(expired);
+
+        Component message = plugin.message("protection-expired").component();
+        for (UUID uuid : expired) {
+            fireChange(uuid);
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null) {
+                plugin.getTaskScheduler().runForPlayer(player, () -> player.sendMessage(message));
             }
         }
     }
 
+    /** Remove the protection a deadline was armed for. False if the deadline is stale. */
+    private boolean expire(ExpiryQueue.Deadline deadline) {
+        if (!playtime) {
+            // Conditional remove skips deadlines left behind by a removal or a re-grant
+            return protectedPlayers.remove(deadline.uuid(), deadline.expiry());
+        }
+        // Only the current session's deadline counts; a quit or a re-grant leaves it stale
+        boolean[] expired = new boolean[1];
+        protectedPlayers.computeIfPresent(deadline.uuid(), (uuid, remaining) -> {
+            Long start = sessions.get(uuid);
+            if (start == null || start + remaining != deadline.expiry()) return remaining;
+            sessions.remove(uuid);
+            expired[0] = true;
+            return null;
+        });
+        return expired[0];
+    }
+
     // ── Protection checks ────────────────────────────────────────────────────
 
+    /**
+     * Whether the player currently has protection. Expired entries are removed by the
+     * expiry task, so this is a plain map lookup with no side effects.
+     */
     public boolean isProtected(UUID uuid) {
-        Long expiry = protectedPlayers.get(uuid);
-        if (expiry == null) return false;
-
-        if (System.currentTimeMillis() >= expiry) {
-            protectedPlayers.remove(uuid);
-            saveData();
-            return false;
-        }
-        return true;
+        return protectedPlayers.containsKey(uuid);
     }
 
     public boolean isProtected(Player player) {
         return isProtected(player.getUniqueId());
     }
 
+    /** Whether any protected player is online. False means no hit can involve protection. */
+    public boolean hasOnlineProtected() {
+        return !onlineProtected.isEmpty();
+    }
+
+    // ── Online tracking ──────────────────────────────────────────────────────
+
+    public void playerJoined(Player player) {
+        UUID uuid = player.getUniqueId();
+        if (!protectedPlayers.containsKey(uuid)) return;
+        onlineProtected.add(uuid);
+        if (playtime) startSession(uuid, System.currentTimeMillis());
+    }
+
+    public void playerQuit(Player player) {
+        UUID uuid = player.getUniqueId();
+        onlineProtected.remove(uuid);
+        if (!playtime) return;
+
+        long remaining = endSession(uuid, System.currentTimeMillis());
+        if (remaining > 0) {
+            storage.put(uuid, remaining);
+        } else if (remaining == 0) {
+            storage.removeAll(List.of(uuid));
+            fireChange(uuid);
+        }
+    }
+
+    // ── Playtime sessions ────────────────────────────────────────────────────
+
+    /** Open a session and arm the deadline at which the remaining time runs out. */
+    private void startSession(UUID uuid, long now) {
+        Long remaining = protectedPlayers.computeIfPresent(uuid, (k, left) -> {
+            sessions.put(k, now);
+            return left;
+        });
+        if (remaining != null) expiryQueue.schedule(uuid, now + remaining);
+    }
+
+    /**
+     * Close a session, taking the time played off the remaining time. Returns the new
+     * remaining time, 0 if it ran out (the protection is removed), or -1 if no session was open.
+     */
+    private long endSession(UUID uuid, long now) {
+        long[] result = {-1};
+        protectedPlayers.computeIfPresent(uuid, (k, remaining) -> {
+            Long start = sessions.remove(k);
+            if (start == null) return remaining;
+            long left = remaining - (now - start);
+            result[0] = Math.max(0, left);
+            return left > 0 ? left : null;
+        });
+        return result[0];
+    }
+
+    /** End every open session and store the remaining times, as if everyone quit now. */
+    private void bankSessions() {
+        if (sessions.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        Map<UUID, Long> banked = new HashMap<>();
+        List<UUID> lapsed = new ArrayList<>();
+        for (UUID uuid : List.copyOf(sessions.keySet())) {
+            long remaining = endSession(uuid, now);
+            if (remaining > 0) banked.put(uuid, remaining);
+            else if (remaining == 0) lapsed.add(uuid);
+        }
+        if (!banked.isEmpty()) storage.putAll(banked);
+        if (!lapsed.isEmpty()) storage.removeAll(lapsed);
+    }
+
     // ── Add / Remove ─────────────────────────────────────────────────────────
 
     public void addProtection(UUID uuid) {
-        long expiry = System.currentTimeMillis() + plugin.getProtectionDurationMillis();
-        protectedPlayers.put(uuid, expiry);
-        saveData();
+        long expiry = grant(uuid);
+        storage.put(uuid, expiry);
+        fireChange(uuid);
     }
 
     public void addProtection(Player player) {
@@ -133,8 +284,9 @@ public class ProtectionManager {
     }
 
     public boolean removeProtection(UUID uuid) {
-        if (protectedPlayers.remove(uuid) != null) {
-            saveData();
+        if (revoke(uuid)) {
+            storage.removeAll(List.of(uuid));
+            fireChange(uuid);
             return true;
         }
         return false;
@@ -144,12 +296,118 @@ public class ProtectionManager {
         return removeProtection(player.getUniqueId());
     }
 
+    /**
+     * In-memory part of a grant. Returns the value to store: the new expiry, or the full
+     * duration under the playtime countdown.
+     */
+    private long grant(UUID uuid) {
+        long now = System.currentTimeMillis();
+        long duration = plugin.getProtectionDurationMillis();
+        boolean online = Bukkit.getPlayer(uuid) != null;
+        if (playtime) {
+            protectedPlayers.put(uuid, duration);
+            sessions.remove(uuid);
+            if (online) {
+                onlineProtected.add(uuid);
+                startSession(uuid, now);
+            }
+            return duration;
+        }
+        long expiry = now + duration;
+        protectedPlayers.put(uuid, expiry);
+        if (online) onlineProtected.add(uuid);
+        expiryQueue.schedule(uuid, expiry);
+        return expiry;
+    }
+
+    /** In-memory part of a removal. Returns false if the player was not protected. */
+    private boolean revoke(UUID uuid) {
+        if (protectedPlayers.remove(uuid) == null) return false;
+        onlineProtected.remove(uuid);
+        sessions.remove(uuid);
+        return true;
+    }
+
+    // ── Bulk changes ─────────────────────────────────────────────────────────
+
+    /**
+     * Start a batch of grants and removals. Each change takes effect in memory right away;
+     * storage only sees the batch on {@link BulkEdit#commit()}, as one write. Meant to be
+     * fed in slices across ticks for large batches.
+     */
+    public BulkEdit bulkEdit() {
+        BulkEdit edit = new BulkEdit();
+        openEdits.add(edit);
+        return edit;
+    }
+
+    public final class BulkEdit {
+
+        private final Map<UUID, Long> granted = new LinkedHashMap<>();
+        private final List<UUID> removed = new ArrayList<>();
+        private boolean committed;
+
+        private BulkEdit() {}
+
+        /** Grant protection unless the player already has it. Returns whether it was granted. */
+        public synchronized boolean add(UUID uuid) {
+            if (committed) throw new IllegalStateException("Bulk edit already committed");
+            if (protectedPlayers.containsKey(uuid)) return false;
+            granted.put(uuid, grant(uuid));
+            fireChange(uuid);
+            return true;
+        }
+
+        /** Remove protection. Returns false if the player was not protected. */
+        public synchronized boolean remove(UUID uuid) {
+            if (committed) throw new IllegalStateException("Bulk edit already committed");
+            if (!revoke(uuid)) return false;
+            granted.remove(uuid);
+            removed.add(uuid);
+            fireChange(uuid);
+            return true;
+        }
+
+        /** Persist every change of the batch in one write. */
+        public synchronized void commit() {
+            if (committed) return;
+            committed = true;
+            openEdits.remove(this);
+            // Skip players changed outside this batch meanwhile; their own write already happened
+            granted.entrySet().removeIf(e -> !e.getValue().equals(protectedPlayers.get(e.getKey())));
+            removed.removeIf(protectedPlayers::containsKey);
+            if (!granted.isEmpty()) storage.putAll(granted);
+            if (!removed.isEmpty()) storage.removeAll(removed);
+        }
+    }
+
+    // ── Change listeners ─────────────────────────────────────────────────────
+
+    /**
+     * Register a callback for changes to a player's protection. The callback receives the
+     * player's UUID, or null when everything was reloaded.
+     */
+    public void addChangeListener(Consumer<UUID> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void fireChange(UUID uuid) {
+        for (Consumer<UUID> listener : changeListeners) {
+            listener.accept(uuid);
+        }
+    }
+
     // ── Time helpers ─────────────────────────────────────────────────────────
 
     public long getRemainingTime(UUID uuid) {
-        Long expiry = protectedPlayers.get(uuid);
-        if (expiry == null) return 0;
-        return Math.max(0, expiry - System.currentTimeMillis());
+        Long value = protectedPlayers.get(uuid);
+        if (value == null) return 0;
+        long now = System.currentTimeMillis();
+        if (!playtime) return Math.max(0, value - now);
+
+        // Offline players keep their remaining time; online ones use up the current session
+        Long start = sessions.get(uuid);
+        return start == null ? value : Math.max(0, value - (now - start));
     }
 
     public long getRemainingTime(Player player) {
@@ -191,11 +449,20 @@ public class ProtectionManager {
         return sb.isEmpty() ? "0 seconds" : sb.toString();
     }
 
+    public int getOnlineProtectedCount() {
+        return onlineProtected.size();
+    }
+
+    /** Live, read-only view of the protected players' UUIDs. */
+    public Set<UUID> getProtectedPlayers() {
+        return Collections.unmodifiableSet(protectedPlayers.keySet());
+    }
+
     /**
      * Get the number of currently protected players (non-expired).
+     * The expiry task removes entries as they lapse, so the map size is the live count.
      */
     public int getProtectedCount() {
-        long now = System.currentTimeMillis();
-        return (int) protectedPlayers.values().stream().filter(expiry -> expiry > now).count();
+        return protectedPlayers.size();
     }
 }
@@ -0,0 +1,41 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Persistence backend for {@link ProtectionManager}. Every grant and removal is passed on as
+ * it happens; implementations decide how to batch them. Implemented by
+ * {@link ProtectionJournal}, {@link YamlProtectionStorage} and {@link SqlStorage}.
+ * <p>
+ * The stored value is an expiry timestamp under the realtime countdown, and the remaining
+ * playtime in milliseconds under the playtime countdown. Values below {@link #PLAYTIME_LIMIT}
+ * are remaining playtime, so backends can tell expired entries apart in either mode.
+ */
+interface ProtectionStorage {
+
+    /** 10^12 ms: about 31 years of playtime, or September 2001 as a timestamp. */
+    long PLAYTIME_LIMIT = 1_000_000_000_000L;
+
+    /** Whether a stored value still grants protection at {@code now}. */
+    static boolean isLive(long value, long now) {
+        return value < PLAYTIME_LIMIT ? value > 0 : value > now;
+    }
+
+    /** Every stored protection that has not expired yet, or null if reading failed. */
+    Map<UUID, Long> load();
+
+    void put(UUID uuid, long expiry);
+
+    /** Store many grants as one write where the backend allows it. */
+    void putAll(Map<UUID, Long> entries);
+
+    void removeAll(Collection<UUID> uuids);
+
+    /** Bring the stored form up to date in the background (compaction, pruning). Runs on autosave. */
+    void checkpoint();
+
+    /** Write out anything pending and release resources. Blocks until done. */
+    void close();
+}
@@ -0,0 +1,236 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Stat counts over the last minute, hour, day and week, per player and globally.
+ * <p>
+ * Every series is three rings of time buckets: 12 five-second buckets cover the last
+ * minute, 60 one-minute buckets the last hour, and 168 one-hour buckets the last day and
+ * week. Rings are advanced lazily on access, clearing the buckets that were skipped, so a
+ * series is a fixed 240 ints per column no matter how long it runs. Window sums are exact
+ * to one bucket of the ring that serves them. A player's series is dropped once nothing
+ * was recorded for them for a week, so memory follows the number of recently active players:
+ * about 2 KB each, nearly all of it the weekly ring.
+ * <p>
+ * A ranking rebuild skips players whose last recording is older than the window, so the
+ * minute and hour boards only sum the series of players hit within that span.
+ * <p>
+ * Windows live in memory only and start empty after a restart. Not thread-safe:
+ * {@link StatsManager} calls in under its monitor.
+ */
+final class RollingWindows {
+
+    enum Window {
+        MINUTE("1m", "Last Minute", 0, 12),
+        HOUR("1h", "Last Hour", 1, 60),
+        DAY("1d", "Last Day", 2, 24),
+        WEEK("1w", "Last Week", 2, 168);
+
+        final String suffix;
+        final String label;
+        final int ring;
+        final int buckets; // newest buckets of the ring that make up the window
+
+        Window(String suffix, String label, int ring, int buckets) {
+            this.suffix = suffix;
+            this.label = label;
+            this.ring = ring;
+            this.buckets = buckets;
+        }
+
+        /** Width of one bucket: the window's value can drop this often with nothing recorded. */
+        long bucketMillis() {
+            return WIDTH[ring];
+        }
+
+        /** A series last recorded at least this long ago reads 0 for the window. */
+        long spanMillis() {
+            return buckets * WIDTH[ring];
+        }
+    }
+
+    /** A windowed stat name such as {@code attacks_blocked_1h}, split into column and window. */
+    record Stat(int column, Window window) {
+
+        /** The parsed stat, or null if the name is not a windowed per-player stat. */
+        static Stat parse(String statName) {
+            int split = statName.lastIndexOf('_');
+            if (split < 0) return null;
+            String suffix = statName.substring(split + 1).toLowerCase();
+            for (Window window : Window.values()) {
+                if (!window.suffix.equals(suffix)) continue;
+                int column = StatsStore.column(statName.substring(0, split));
+                return column < 0 ? null : new Stat(column, window);
+            }
+            return null;
+        }
+    }
+
+    /** Places kept by the windowed leaderboards. */
+    static final int TOP_SIZE = 100;
+
+    /** How long after the last recording every window of a series reads 0: a week plus the oldest bucket. */
+    static final long RETENTION_MILLIS = (7L * 24 + 1) * 3_600_000L;
+
+    private static final long[] WIDTH = {5_000L, 60_000L, 3_600_000L};
+    private static final int[] LENGTH = {12, 60, 168};
+    private static final int[] OFFSET = {0, 12, 72};
+    private static final int SLOTS = 240;
+    private static final long PRUNE_INTERVAL_MILLIS = 60_000L;
+    private static final long TOP_TTL_MILLIS = 1_000L;
+
+    private static final class Series {
+        String name;
+        long advancedTo;   // time the rings were last advanced to
+        long lastRecorded;
+        final int[] buckets = new int[StatsStore.COLUMN_COUNT * SLOTS];
+
+        Series(String name, long now) {
+            this.name = name;
+            this.advancedTo = now;
+            this.lastRecorded = now;
+        }
+    }
+
+    private record Ranking(long builtAt, List<Map.Entry<String, Number>> entries) {}
+
+    private final Map<UUID, Series> players = new HashMap<>();
+    private final Series global = new Series(null, System.currentTimeMillis());
+    private final Ranking[] rankings = new Ranking[StatsStore.COLUMN_COUNT * Window.values().length];
+    private long lastPrune;
+
+    // ── Recording ────────────────────────────────────────────────────────────
+
+    void add(UUID uuid, String name, int column, int delta, long now) {
+        Series series = players.get(uuid);
+        if (series == null) {
+            series = new Series(name, now);
+            players.put(uuid, series);
+        } else {
+            series.name = name;
+        }
+        record(series, column, delta, now);
+        record(global, column, delta, now);
+    }
+
+    /** Drop players with nothing recorded for a week. Cheap to call often; runs once a minute. */
+    void prune(long now) {
+        if (now - lastPrune < PRUNE_INTERVAL_MILLIS) return;
+        lastPrune = now;
+        players.values().removeIf(series -> now - series.lastRecorded > RETENTION_MILLIS);
+    }
+
+    // ── Reads ────────────────────────────────────────────────────────────────
+
+    int get(UUID uuid, int column, Window window, long now) {
+        Series series = players.get(uuid);
+        return series == null ? 0 : sum(series, column, window, now);
+    }
+
+    int global(int column, Window window, long now) {
+        return sum(global, column, window, now);
+    }
+
+    /**
+     * The first {@link #TOP_SIZE} places for a windowed stat, as name → value, descending.
+     * Rebuilt from the active players at most once a second.
+     */
+    List<Map.Entry<String, Number>> top(int column, Window window, long now) {
+        int slot = column * Window.values().length + window.ordinal();
+        Ranking ranking = rankings[slot];
+        if (ranking != null && now - ranking.builtAt() < TOP_TTL_MILLIS) return ranking.entries();
+
+        // Min-heap of the best TOP_SIZE so far; values are read once per series
+        PriorityQueue<Map.Entry<String, Integer>> best =
+                new PriorityQueue<>(TOP_SIZE + 1, Map.Entry.comparingByValue());
+        for (Series series : players.values()) {
+            if (now - series.lastRecorded >= window.spanMillis()) continue;
+            int value = sum(series, column, window, now);
+            if (value == 0) continue;
+            if (best.size() < TOP_SIZE) {
+                best.add(new AbstractMap.SimpleEntry<>(series.name, value));
+            } else if (value > best.peek().getValue()) {
+                best.poll();
+                best.add(new AbstractMap.SimpleEntry<>(series.name, value));
+            }
+        }
+        List<Map.Entry<String, Number>> entries = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            Map.Entry<String, Integer> entry = best.poll();
+            entries.add(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue()));
+        }
+        Collections.reverse(entries);
+
+        List<Map.Entry<String, Number>> result = List.copyOf(entries);
+        rankings[slot] = new Ranking(now, result);
+        return result;
+    }
+
+    /** Visit every player with a series, with their per-window values for {@code column}. */
+    void forEach(int column, long now, BiConsumer<UUID, int[]> action) {
+        int[] values = new int[Window.values().length];
+        for (Map.Entry<UUID, Series> entry : players.entrySet()) {
+            for (Window window : Window.values()) {
+                values[window.ordinal()] = sum(entry.getValue(), column, window, now);
+            }
+            action.accept(entry.getKey(), values);
+        }
+    }
+
+    int size() {
+        return players.size();
+    }
+
+    // ── Rings ────────────────────────────────────────────────────────────────
+
+    private static void record(Series series, int column, int delta, long now) {
+        long time = advance(series, now);
+        int base = column * SLOTS;
+        for (int ring = 0; ring < WIDTH.length; ring++) {
+            series.buckets[base + OFFSET[ring] + (int) ((time / WIDTH[ring]) % LENGTH[ring])] += delta;
+        }
+        series.lastRecorded = time;
+    }
+
+    private static int sum(Series series, int column, Window window, long now) {
+        long time = advance(series, now);
+        int ring = window.ring;
+        long newest = time / WIDTH[ring];
+        int base = column * SLOTS + OFFSET[ring];
+        int total = 0;
+        for (int i = 0; i < window.buckets; i++) {
+            total += series.buckets[base + (int) ((newest - i) % LENGTH[ring])];
+        }
+        return total;
+    }
+
+    /**
+     * Clear the buckets that time has moved past since the last access. Returns the time
+     * to use, which never goes backwards even if the clock does.
+     */
+    private static long advance(Series series, long now) {
+        if (now <= series.advancedTo) return series.advancedTo;
+        for (int ring = 0; ring < WIDTH.length; ring++) {
+            long from = series.advancedTo / WIDTH[ring];
+            long to = now / WIDTH[ring];
+            long skipped = Math.min(to - from, LENGTH[ring]);
+            for (long bucket = to - skipped + 1; bucket <= to; bucket++) {
+                int slot = OFFSET[ring] + (int) (bucket % LENGTH[ring]);
+                for (int column = 0; column < StatsStore.COLUMN_COUNT; column++) {
+                    series.buckets[column * SLOTS + slot] = 0;
+                }
+            }
+        }
+        series.advancedTo = now;
+        return now;
+    }
+}
@@ -0,0 +1,508 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import dev.bekololek.newplayerprotection.Main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Embedded SQL storage (SQLite or H2 file mode) for protections and stats.
+ * <p>
+ * One connection is shared by both managers and used only from a single writer thread, so
+ * statements never interleave and the database sees one writer. Protection changes are
+ * queued and drained by that thread in one transaction per drain, so a burst of grants or
+ * expiries becomes a single batched commit, with only the last change per player written.
+ * Stat counters arrive already coalesced from {@link StatsPager}'s dirty tracking and are
+ * upserted as one batch per flush. Expiry and every stat column are indexed, so startup
+ * loads only live protections and leaderboards are read with ordered, limited queries.
+ * <pre>
+ * npp_protections  (uuid PK, expiry)                              index on expiry
+ * npp_player_stats (uuid PK, name, attacks_blocked, attacks_prevented)  index per stat
+ * npp_global       (stat PK, amount)
+ * </pre>
+ */
+public final class SqlStorage {
+
+    private enum Dialect { SQLITE, H2 }
+
+    /** Stat column names, indexed by {@link StatsStore} column. */
+    private static final String[] STAT_COLUMNS = {"attacks_blocked", "attacks_prevented"};
+    private static final long REMOVED = 0L;
+
+    private final Main plugin;
+    private final Dialect dialect;
+    private final Connection connection; // writer thread only
+    private final ExecutorService writer;
+    private final ConcurrentLinkedQueue<Change> pendingProtections = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    private final ProtectionView protectionView = new ProtectionView();
+    private final StatsView statsView = new StatsView();
+
+    private record Change(UUID uuid, long expiry) {}
+
+    private SqlStorage(Main plugin, Dialect dialect, Connection connection) {
+        this.plugin = plugin;
+        this.dialect = dialect;
+        this.connection = connection;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "NewPlayerProtection-SQL");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Open the database for a {@code storage.type} of {@code sqlite} or {@code h2}. Returns
+     * null, after logging why, if the type is unknown or the driver or file is unavailable,
+     * in which case the caller falls back to file storage.
+     */
+    public static SqlStorage open(Main plugin, String type) {
+        Dialect dialect;
+        String driverClass;
+        String url;
+        switch (type.toLowerCase()) {
+            case "sqlite" -> {
+                dialect = Dialect.SQLITE;
+                driverClass = "org.sqlite.JDBC"; // bundled with Paper
+                url = "jdbc:sqlite:" + new File(plugin.getDataFolder(), "data.db").getAbsolutePath();
+            }
+            case "h2" -> {
+                dialect = Dialect.H2;
+                driverClass = "org.h2.Driver";
+                url = "jdbc:h2:file:" + new File(plugin.getDataFolder(), "data").getAbsolutePath();
+            }
+            default -> {
+                plugin.getLogger().warning("Unknown storage.type '" + type + "', using file storage.");
+                return null;
+            }
+        }
+
+        try {
+            plugin.getDataFolder().mkdirs();
+            // Instantiate the driver directly: DriverManager ignores drivers from plugin class loaders
+            Driver driver = (Driver) Class.forName(driverClass).getDeclaredConstructor().newInstance();
+            Connection connection = driver.connect(url, new Properties());
+            SqlStorage storage = new SqlStorage(plugin, dialect, connection);
+            storage.submitAndWait(() -> {
+                storage.createSchema();
+                storage.importLegacyProtections();
+                return null;
+            });
+            plugin.getLogger().info("Using " + dialect.name().toLowerCase() + " storage.");
+            return storage;
+        } catch (ReflectiveOperationException | SQLException | IllegalStateException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to open " + type + " storage, using file storage", e);
+            return null;
+        }
+    }
+
+    ProtectionStorage protections() {
+        return protectionView;
+    }
+
+    StatsStorage stats() {
+        return statsView;
+    }
+
+    /** Write out pending protection changes, close the connection and stop the writer. */
+    public void close() {
+        try {
+            submitAndWait(() -> {
+                drainProtections();
+                connection.close();
+                return null;
+            });
+        } catch (IllegalStateException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to close database", e);
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for the database writer to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ── Schema / migration ───────────────────────────────────────────────────
+
+    private void createSchema() throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement st = connection.createStatement()) {
+            if (dialect == Dialect.SQLITE) {
+                st.execute("PRAGMA journal_mode=WAL");
+                st.execute("PRAGMA synchronous=NORMAL");
+            }
+            st.execute("CREATE TABLE IF NOT EXISTS npp_protections ("
+                    + "uuid CHAR(36) NOT NULL PRIMARY KEY, expiry BIGINT NOT NULL)");
+            st.execute("CREATE INDEX IF NOT EXISTS npp_protections_expiry ON npp_protections (expiry)");
+            st.execute("CREATE TABLE IF NOT EXISTS npp_player_stats ("
+                    + "uuid CHAR(36) NOT NULL PRIMARY KEY, name VARCHAR(32) NOT NULL, "
+                    + "attacks_blocked INT NOT NULL DEFAULT 0, attacks_prevented INT NOT NULL DEFAULT 0)");
+            for (String column : STAT_COLUMNS) {
+                st.execute("CREATE INDEX IF NOT EXISTS npp_player_stats_" + column
+                        + " ON npp_player_stats (" + column + " DESC)");
+            }
+            st.execute("CREATE TABLE IF NOT EXISTS npp_global ("
+                    + "stat VARCHAR(64) NOT NULL PRIMARY KEY, amount BIGINT NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    /**
+     * Copy protections from data.yml and data.journal into an empty table, then set the
+     * files aside so a later empty table does not bring back stale entries.
+     */
+    private void importLegacyProtections() throws SQLException {
+        File dataFile = new File(plugin.getDataFolder(), "data.yml");
+        File journalFile = new File(plugin.getDataFolder(), "data.journal");
+        if (!dataFile.exists() && !journalFile.exists()) return;
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM npp_protections")) {
+            if (rs.next() && rs.getLong(1) > 0) return;
+        }
+
+        // Replaying through the journal folds data.journal into data.yml on close
+        ProtectionJournal journal = new ProtectionJournal(plugin, dataFile, Integer.MAX_VALUE);
+        Map<UUID, Long> legacy = journal.load();
+        journal.close();
+        if (legacy == null) return;
+
+        for (Map.Entry<UUID, Long> entry : legacy.entrySet()) {
+            pendingProtections.add(new Change(entry.getKey(), entry.getValue()));
+        }
+        drainProtections();
+        try {
+            Files.move(dataFile.toPath(), new File(dataFile.getParentFile(), "data.yml.migrated").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(journalFile.toPath());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Imported data.yml but could not rename it", e);
+        }
+        plugin.getLogger().info("Imported " + legacy.size() + " protections from data.yml.");
+    }
+
+    // ── Protections ──────────────────────────────────────────────────────────
+
+    private void queueProtection(Change change) {
+        pendingProtections.add(change);
+        if (drainQueued.compareAndSet(false, true)) {
+            writer.execute(plugin.getMetrics().trackSave(() -> {
+                try {
+                    drainProtections();
+                } catch (SQLException e) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to write protections", e);
+                }
+            }));
+        }
+    }
+
+    /** Write every queued change in one transaction. Writer thread only. */
+    private void drainProtections() throws SQLException {
+        // Cleared first: anything queued after this point schedules another drain
+        drainQueued.set(false);
+        Map<UUID, Long> latest = new LinkedHashMap<>();
+        Change change;
+        while ((change = pendingProtections.poll()) != null) {
+            latest.put(change.uuid(), change.expiry());
+        }
+        if (latest.isEmpty()) return;
+
+        try (PreparedStatement upsert = connection.prepareStatement(upsertSql(
+                     "npp_protections", "uuid", "expiry"));
+             PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM npp_protections WHERE uuid = ?")) {
+            for (Map.Entry<UUID, Long> entry : latest.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    delete.setString(1, entry.getKey().toString());
+                    delete.addBatch();
+                } else {
+                    upsert.setString(1, entry.getKey().toString());
+                    upsert.setLong(2, entry.getValue());
+                    upsert.addBatch();
+                }
+            }
+            upsert.executeBatch();
+            delete.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private final class ProtectionView implements ProtectionStorage {
+
+        @Override
+        public Map<UUID, Long> load() {
+            try {
+                return submitAndWait(() -> {
+                    drainProtections();
+                    Map<UUID, Long> map = new HashMap<>();
+                    try (PreparedStatement st = connection.prepareStatement(
+                            "SELECT uuid, expiry FROM npp_protections"
+                                    + " WHERE expiry > ? OR (expiry > 0 AND expiry < ?)")) {
+                        st.setLong(1, System.currentTimeMillis());
+                        st.setLong(2, PLAYTIME_LIMIT);
+                        try (ResultSet rs = st.executeQuery()) {
+                            while (rs.next()) {
+                                map.put(UUID.fromString(rs.getString(1)), rs.getLong(2));
+                            }
+                        }
+                    }
+                    return map;
+                });
+            } catch (IllegalStateException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to load protections", e);
+                return null;
+            }
+        }
+
+        @Override
+        public void put(UUID uuid, long expiry) {
+            queueProtection(new Change(uuid, expiry));
+        }
+
+        /** Queued changes are drained together, so this becomes one transaction. */
+        @Override
+        public void putAll(Map<UUID, Long> entries) {
+            for (Map.Entry<UUID, Long> entry : entries.entrySet()) {
+                queueProtection(new Change(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        @Override
+        public void removeAll(Collection<UUID> uuids) {
+            for (UUID uuid : uuids) {
+                queueProtection(new Change(uuid, REMOVED));
+            }
+        }
+
+        /**
+         * Delete rows that expired while the server was down; uses the expiry index. Remaining
+         * playtime never lapses offline, so those rows are left alone.
+         */
+        @Override
+        public void checkpoint() {
+            writer.execute(() -> {
+                try (PreparedStatement st = connection.prepareStatement(
+                        "DELETE FROM npp_protections WHERE expiry <= ? AND expiry >= ?")) {
+                    st.setLong(1, System.currentTimeMillis());
+                    st.setLong(2, PLAYTIME_LIMIT);
+                    st.executeUpdate();
+                    connection.commit();
+                } catch (SQLException e) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to prune expired protections", e);
+                }
+            });
+        }
+
+        /** Flush queued changes. The connection stays open until {@link SqlStorage#close()}. */
+        @Override
+        public void close() {
+            try {
+                submitAndWait(() -> {
+                    drainProtections();
+                    return null;
+                });
+            } catch (IllegalStateException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to write protections", e);
+            }
+        }
+    }
+
+    // ── Stats ────────────────────────────────────────────────────────────────
+
+    private final class StatsView implements StatsStorage {
+
+        @Override
+        public int count() throws IOException {
+            return (int) queryLong("SELECT COUNT(*) FROM npp_player_stats");
+        }
+
+        @Override
+        public int totalPlayersEverProtected() throws IOException {
+            return (int) queryLong("SELECT amount FROM npp_global WHERE stat = 'total_players_ever_protected'");
+        }
+
+        @Override
+        public long totalAttacksBlocked() throws IOException {
+            return queryLong("SELECT amount FROM npp_global WHERE stat = 'total_attacks_blocked'");
+        }
+
+        @Override
+        public Record read(UUID uuid) throws IOException {
+            return io(() -> {
+                try (PreparedStatement st = connection.prepareStatement(
+                        "SELECT " + selectColumns() + " FROM npp_player_stats WHERE uuid = ?")) {
+                    st.setString(1, uuid.toString());
+                    try (ResultSet rs = st.executeQuery()) {
+                        return rs.next() ? record(rs) : null;
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void writeBatch(Collection<Record> records, int totalPlayersEverProtected,
+                               long totalAttacksBlocked) throws IOException {
+            List<Record> copy = List.copyOf(records);
+            io(() -> {
+                String[] columns = new String[2 + STAT_COLUMNS.length];
+                columns[0] = "uuid";
+                columns[1] = "name";
+                System.arraycopy(STAT_COLUMNS, 0, columns, 2, STAT_COLUMNS.length);
+                try (PreparedStatement players = connection.prepareStatement(
+                             upsertSql("npp_player_stats", columns));
+                     PreparedStatement global = connection.prepareStatement(
+                             upsertSql("npp_global", "stat", "amount"))) {
+                    for (Record record : copy) {
+                        players.setString(1, record.uuid().toString());
+                        players.setString(2, record.name());
+                        for (int c = 0; c < STAT_COLUMNS.length; c++) {
+                            players.setInt(3 + c, record.values()[c]);
+                        }
+                        players.addBatch();
+                    }
+                    players.executeBatch();
+
+                    global.setString(1, "total_players_ever_protected");
+                    global.setLong(2, totalPlayersEverProtected);
+                    global.addBatch();
+                    global.setString(1, "total_attacks_blocked");
+                    global.setLong(2, totalAttacksBlocked);
+                    global.addBatch();
+                    global.executeBatch();
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+                return null;
+            });
+        }
+
+        @Override
+        public void forEach(Consumer<Record> visitor) throws IOException {
+            io(() -> {
+                try (Statement st = connection.createStatement()) {
+                    st.setFetchSize(1000);
+                    try (ResultSet rs = st.executeQuery("SELECT " + selectColumns() + " FROM npp_player_stats")) {
+                        while (rs.next()) visitor.accept(record(rs));
+                    }
+                }
+                return null;
+            });
+        }
+
+        /** Served by the per-column index instead of a scan. */
+        @Override
+        public List<Record> top(int column, int limit) throws IOException {
+            return io(() -> {
+                List<Record> best = new ArrayList<>(limit);
+                try (PreparedStatement st = connection.prepareStatement("SELECT " + selectColumns()
+                        + " FROM npp_player_stats ORDER BY " + STAT_COLUMNS[column] + " DESC LIMIT ?")) {
+                    st.setInt(1, limit);
+                    try (ResultSet rs = st.executeQuery()) {
+                        while (rs.next()) best.add(record(rs));
+                    }
+                }
+                return best;
+            });
+        }
+
+        /** The shared connection is closed by {@link SqlStorage#close()}. */
+        @Override
+        public void close() {
+        }
+
+        private long queryLong(String sql) throws IOException {
+            return io(() -> {
+                try (Statement st = connection.createStatement();
+                     ResultSet rs = st.executeQuery(sql)) {
+                    return rs.next() ? rs.getLong(1) : 0L;
+                }
+            });
+        }
+
+        private static String selectColumns() {
+            return "uuid, name, " + String.join(", ", STAT_COLUMNS);
+        }
+
+        private static Record record(ResultSet rs) throws SQLException {
+            int[] values = new int[StatsStore.COLUMN_COUNT];
+            for (int c = 0; c < STAT_COLUMNS.length && c < values.length; c++) {
+                values[c] = rs.getInt(3 + c);
+            }
+            return new Record(UUID.fromString(rs.getString(1)), rs.getString(2), values);
+        }
+    }
+
+    // ── Helpers ──────────────────────────────────────────────────────────────
+
+    /** Insert-or-replace keyed on the first column, in this database's syntax. */
+    private String upsertSql(String table, String... columns) {
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+        String columnList = String.join(", ", columns);
+        if (dialect == Dialect.H2) {
+            return "MERGE INTO " + table + " (" + columnList + ") KEY (" + columns[0] + ") VALUES (" + placeholders + ")";
+        }
+        StringBuilder update = new StringBuilder();
+        for (int i = 1; i < columns.length; i++) {
+            if (i > 1) update.append(", ");
+            update.append(columns[i]).append(" = excluded.").append(columns[i]);
+        }
+        return "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")"
+                + " ON CONFLICT (" + columns[0] + ") DO UPDATE SET " + update;
+    }
+
+    private interface SqlTask<T> {
+        T run() throws SQLException;
+    }
+
+    /** Run on the writer thread and wait, rethrowing SQL failures as IOException. */
+    private <T> T io(SqlTask<T> task) throws IOException {
+        try {
+            return submitAndWait(task);
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private <T> T submitAndWait(SqlTask<T> task) {
+        try {
+            return writer.submit(task::run).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the database", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Database operation failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Stat increments recorded since the last aggregation pass.
+ * <p>
+ * Each player gets one entry with a {@link LongAdder} per column, created on their first
+ * recorded hit and reused afterwards, so recording is a map read and an adder increment:
+ * no lock, and no allocation once the player is warm. Parallel region threads hitting the
+ * same player land on different adder cells. {@link StatsManager} drains the buffer into
+ * its store on a fixed cadence and before every save; draining must be single-threaded.
+ * <p>
+ * Draining subtracts what it read instead of resetting, so an increment racing with the
+ * drain is carried to the next pass rather than lost. A recorder also puts its entry on a
+ * dirty queue the first time it hits it after a drain, and a drain only visits that queue,
+ * so a pass costs the players hit since the last one, not everyone with an entry.
+ * <p>
+ * Entries left idle for {@link #IDLE_PASSES} passes are retired: taken out of the map and
+ * flagged, so the next hit for that player retries and creates a fresh entry. A recorder
+ * that looked the old entry up a moment earlier may still add to it; that hit queues the
+ * entry like any other, and the drain reads queued entries whether they are mapped or not.
+ */
+final class StatDeltas {
+
+    /** Receives one column's delta for one player during {@link #drain}. */
+    @FunctionalInterface
+    interface Sink {
+        void accept(UUID uuid, String name, int column, int delta);
+    }
+
+    private static final class Pending {
+        final UUID uuid;
+        volatile String name;
+        final LongAdder[] columns = new LongAdder[StatsStore.COLUMN_COUNT];
+        final AtomicBoolean queued = new AtomicBoolean();
+        volatile boolean retired;
+        volatile long lastDrained; // pass that created or last drained it
+
+        Pending(UUID uuid, String name, long pass) {
+            this.uuid = uuid;
+            this.name = name;
+            this.lastDrained = pass;
+            for (int c = 0; c < columns.length; c++) columns[c] = new LongAdder();
+        }
+    }
+
+    /** Passes without a hit before a player's entry is retired. */
+    static final int IDLE_PASSES = 600;
+
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Pending> dirty = new ConcurrentLinkedQueue<>();
+    private final LongAdder protectionsGranted = new LongAdder();
+    private volatile long passes;
+    private long sweptAt;
+
+    // ── Recording (any thread) ───────────────────────────────────────────────
+
+    void increment(int column, UUID uuid, String name) {
+        Pending entry;
+        do {
+            entry = pending.get(uuid);
+            if (entry == null) entry = pending.computeIfAbsent(uuid, k -> new Pending(k, name, passes));
+        } while (entry.retired); // retired entries are already out of the map
+        // getName() returns the same instance every call, so this is almost always a reference match
+        if (entry.name != name) entry.name = name;
+        entry.columns[column].increment();
+        // Queued only after the add: a drain clears the flag before reading the adders
+        if (!entry.queued.get() && entry.queued.compareAndSet(false, true)) dirty.add(entry);
+    }
+
+    void protectionsGranted(int count) {
+        protectionsGranted.add(count);
+    }
+
+    // ── Draining (one thread at a time) ──────────────────────────────────────
+
+    /**
+     * Hand every non-zero delta to {@code sink} and take it off the buffer. Players that
+     * {@code ready} rejects keep their deltas for a later pass.
+     */
+    void drain(Sink sink, Predicate<UUID> ready) {
+        long pass = ++passes;
+        List<Pending> waiting = new ArrayList<>();
+        Pending entry;
+        while ((entry = dirty.poll()) != null) {
+            if (!ready.test(entry.uuid)) {
+                waiting.add(entry); // still queued, so recorders will not add it twice
+                continue;
+            }
+            entry.queued.set(false);
+            entry.lastDrained = pass;
+            for (int c = 0; c < entry.columns.length; c++) {
+                long delta = take(entry.columns[c]);
+                if (delta != 0) sink.accept(entry.uuid, entry.name, c, (int) delta);
+            }
+        }
+        dirty.addAll(waiting);
+    }
+
+    /**
+     * Retire the entries of players not hit for {@link #IDLE_PASSES} passes. Walks every
+     * entry, so it does so at most once per {@code IDLE_PASSES} passes; callers need not
+     * hold any lock the recorders or the drain use.
+     */
+    synchronized void retireIdle() {
+        long pass = passes;
+        if (pass - sweptAt < IDLE_PASSES) return;
+        sweptAt = pass;
+        for (Pending entry : pending.values()) {
+            if (pass - entry.lastDrained < IDLE_PASSES || entry.queued.get()) continue;
+            // Out of the map first, so a recorder that sees the flag finds no entry on retry
+            if (pending.remove(entry.uuid, entry)) entry.retired = true;
+        }
+    }
+
+    /** Visit the players that have deltas waiting, with their latest name. */
+    void forEachPending(BiConsumer<UUID, String> action) {
+        for (Pending entry : dirty) action.accept(entry.uuid, entry.name);
+    }
+
+    int takeProtectionsGranted() {
+        return (int) take(protectionsGranted);
+    }
+
+    /** Players with a live entry, drained or not. */
+    int size() {
+        return pending.size();
+    }
+
+    /**
+     * Read the adder and subtract what was read. Unlike {@link LongAdder#sumThenReset}, an
+     * increment landing between the two stays in the adder for the next pass.
+     */
+    private static long take(LongAdder adder) {
+        long value = adder.sum();
+        if (value != 0) adder.add(-value);
+        return value;
+    }
+}
@@ -0,0 +1,291 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Time series of global stats for graphs ({@code stats.history}), written through a
+ * memory-mapped file.
+ * <p>
+ * The file holds three rings of fixed-size records: raw samples, hourly and daily. Each ring
+ * is appended to in time order and overwrites its oldest record when full, so the file size
+ * is fixed by the retention settings. Whenever a sample crosses an hour or day boundary, the
+ * finished bucket is merged from the finer ring into the coarser one, so old data survives
+ * at a lower resolution after the raw samples covering it are overwritten. Buckets are
+ * aligned to UTC. Queries walk the mapping in place and hand fields to a visitor; nothing is
+ * copied or allocated.
+ * <pre>
+ * header (64 bytes): int magic "NPPH", int version, int record size, int ring count,
+ *                    per ring: int capacity, int head (next write), int count
+ * record (32 bytes): long bucket start (epoch millis), long total attacks blocked,
+ *                    int attacks blocked, int new grants, int protected players (last),
+ *                    int protected players (max)
+ * </pre>
+ * Changing a retention rewrites the file on open, keeping the newest records that fit.
+ * Not thread-safe beyond its own monitor; all methods are synchronized.
+ */
+public final class StatsHistory implements AutoCloseable {
+
+    /** Record resolution. Each is filled from the one before it. */
+    public enum Resolution {
+        RAW(0L), HOURLY(3_600_000L), DAILY(86_400_000L);
+
+        final long width; // bucket width, 0 for raw samples
+
+        Resolution(long width) {
+            this.width = width;
+        }
+    }
+
+    /** Receives the fields of one record, oldest first. */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long time, long attacksBlockedTotal, int attacksBlocked, int newGrants,
+                    int protectedPlayers, int protectedPlayersMax);
+    }
+
+    private static final int MAGIC = 0x4E505048; // "NPPH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int RINGS = Resolution.values().length;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int[] capacity = new int[RINGS];
+    private final int[] head = new int[RINGS];
+    private final int[] count = new int[RINGS];
+    private final long[] offset = new long[RINGS];
+    private long revision; // records written since open
+
+    private StatsHistory(FileChannel channel, MappedByteBuffer map, int[] capacities) {
+        this.channel = channel;
+        this.map = map;
+        long position = HEADER_SIZE;
+        for (int ring = 0; ring < RINGS; ring++) {
+            capacity[ring] = capacities[ring];
+            offset[ring] = position;
+            position += (long) capacities[ring] * RECORD_SIZE;
+        }
+    }
+
+    /**
+     * Open the history file with the given ring capacities (raw, hourly, daily), creating it
+     * or rewriting it to the new sizes as needed.
+     */
+    static StatsHistory open(File file, int[] capacities) throws IOException {
+        if (file.exists() && file.length() >= HEADER_SIZE && !matches(file, capacities)) {
+            resize(file, capacities);
+        }
+        boolean exists = file.exists() && file.length() == fileSize(capacities);
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (!exists) channel.truncate(0);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacities));
+            StatsHistory history = new StatsHistory(channel, map, capacities);
+            if (exists) {
+                history.readHeader();
+            } else {
+                history.writeHeader();
+            }
+            return history;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // ── Appending ────────────────────────────────────────────────────────────
+
+    /**
+     * Append a raw sample, first rolling the previous sample's hour and day into the coarser
+     * rings if this sample starts a new one.
+     */
+    synchronized void append(long time, long attacksBlockedTotal, int attacksBlocked, int newGrants,
+                             int protectedPlayers) {
+        int raw = Resolution.RAW.ordinal();
+        if (count[raw] > 0) {
+            long previous = map.getLong(position(raw, count[raw] - 1));
+            if (time <= previous) return; // clock went back; keep the rings in time order
+            for (int ring = 1; ring < RINGS; ring++) {
+                long width = Resolution.values()[ring].width;
+                if (time / width != previous / width) rollUp(ring, previous - previous % width);
+            }
+        }
+        write(raw, time, attacksBlockedTotal, attacksBlocked, newGrants, protectedPlayers, protectedPlayers);
+    }
+
+    /** Merge the records of the finer ring inside the bucket starting at {@code start}. */
+    private void rollUp(int ring, long start) {
+        if (count[ring] > 0 && map.getLong(position(ring, count[ring] - 1)) >= start) return; // already rolled up
+        long end = start + Resolution.values()[ring].width;
+        int source = ring - 1;
+        long lastTotal = 0;
+        int attacks = 0;
+        int grants = 0;
+        int lastProtected = 0;
+        int maxProtected = 0;
+        int merged = 0;
+        for (int i = firstAtOrAfter(source, start); i < count[source]; i++) {
+            int pos = position(source, i);
+            if (map.getLong(pos) >= end) break;
+            lastTotal = map.getLong(pos + 8);
+            attacks += map.getInt(pos + 16);
+            grants += map.getInt(pos + 20);
+            lastProtected = map.getInt(pos + 24);
+            maxProtected = Math.max(maxProtected, map.getInt(pos + 28));
+            merged++;
+        }
+        if (merged == 0) return;
+        write(ring, start, lastTotal, attacks, grants, lastProtected, maxProtected);
+    }
+
+    private void write(int ring, long time, long total, int attacks, int grants, int protectedLast, int protectedMax) {
+        int pos = (int) (offset[ring] + (long) head[ring] * RECORD_SIZE);
+        map.putLong(pos, time)
+                .putLong(pos + 8, total)
+                .putInt(pos + 16, attacks)
+                .putInt(pos + 20, grants)
+                .putInt(pos + 24, protectedLast)
+                .putInt(pos + 28, protectedMax);
+        head[ring] = (head[ring] + 1) % capacity[ring];
+        if (count[ring] < capacity[ring]) count[ring]++;
+        revision++;
+        writeHeader();
+    }
+
+    /** Changes whenever a record is written, so callers can tell whether a query could differ. */
+    synchronized long revision() {
+        return revision;
+    }
+
+    /** Write dirty pages back to disk. Called from the autosave. */
+    synchronized void force() {
+        map.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    // ── Queries ──────────────────────────────────────────────────────────────
+
+    /** Visit the records with {@code from <= time < to} at the given resolution, oldest first. */
+    synchronized void query(Resolution resolution, long from, long to, Visitor visitor) {
+        int ring = resolution.ordinal();
+        for (int i = firstAtOrAfter(ring, from); i < count[ring]; i++) {
+            int pos = position(ring, i);
+            long time = map.getLong(pos);
+            if (time >= to) break;
+            visitor.accept(time, map.getLong(pos + 8), map.getInt(pos + 16), map.getInt(pos + 20),
+                    map.getInt(pos + 24), map.getInt(pos + 28));
+        }
+    }
+
+    /** Logical index (0 = oldest) of the first record at or after {@code time}; binary search. */
+    private int firstAtOrAfter(int ring, long time) {
+        int lo = 0;
+        int hi = count[ring];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (map.getLong(position(ring, mid)) < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Byte position of the record at a logical index, 0 being the oldest. */
+    private int position(int ring, int index) {
+        int physical = (head[ring] - count[ring] + index + capacity[ring]) % capacity[ring];
+        return (int) (offset[ring] + (long) physical * RECORD_SIZE);
+    }
+
+    // ── Header / sizing ──────────────────────────────────────────────────────
+
+    private void readHeader() throws IOException {
+        if (map.getInt(0) != MAGIC) throw new IOException("Not a stats history file");
+        int version = map.getInt(4);
+        if (version != VERSION) throw new IOException("Unsupported history file version " + version);
+        for (int ring = 0; ring < RINGS; ring++) {
+            int base = 16 + ring * 12;
+            head[ring] = map.getInt(base + 4);
+            count[ring] = map.getInt(base + 8);
+            if (head[ring] < 0 || head[ring] >= capacity[ring] || count[ring] < 0 || count[ring] > capacity[ring]) {
+                throw new IOException("Corrupt stats history header");
+            }
+        }
+    }
+
+    private void writeHeader() {
+        map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE).putInt(12, RINGS);
+        for (int ring = 0; ring < RINGS; ring++) {
+            int base = 16 + ring * 12;
+            map.putInt(base, capacity[ring]).putInt(base + 4, head[ring]).putInt(base + 8, count[ring]);
+        }
+    }
+
+    private static long fileSize(int[] capacities) {
+        long size = HEADER_SIZE;
+        for (int c : capacities) size += (long) c * RECORD_SIZE;
+        return size;
+    }
+
+    /** Whether the file on disk was written with these capacities. */
+    private static boolean matches(File file, int[] capacities) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            for (int ring = 0; ring < RINGS; ring++) {
+                if (header.getInt(16 + ring * 12) != capacities[ring]) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Rewrite the file with new ring capacities, keeping the newest records of each ring.
+     * Runs before the file is mapped, and writes next to it before moving into place.
+     */
+    private static void resize(File file, int[] capacities) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.deleteIfExists(tmp.toPath());
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            in.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a readable stats history file");
+            }
+            try (StatsHistory out = open(tmp, capacities)) {
+                long position = HEADER_SIZE;
+                ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+                for (int ring = 0; ring < RINGS; ring++) {
+                    int oldCapacity = header.getInt(16 + ring * 12);
+                    int oldHead = header.getInt(16 + ring * 12 + 4);
+                    int oldCount = header.getInt(16 + ring * 12 + 8);
+                    int keep = Math.min(oldCount, capacities[ring]);
+                    for (int i = oldCount - keep; i < oldCount; i++) {
+                        int physical = (oldHead - oldCount + i + oldCapacity) % oldCapacity;
+                        record.clear();
+                        in.read(record, position + (long) physical * RECORD_SIZE);
+                        out.write(ring, record.getLong(0), record.getLong(8), record.getInt(16),
+                                record.getInt(20), record.getInt(24), record.getInt(28));
+                    }
+                    position += (long) oldCapacity * RECORD_SIZE;
+                }
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
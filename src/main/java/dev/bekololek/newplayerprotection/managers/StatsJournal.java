@@ -0,0 +1,205 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of changed player records on top of {@code stats.bin}.
+ * <p>
+ * An autosave appends one batch holding the players changed since the previous save, with
+ * their full current values, instead of rewriting the snapshot. Replaying the batches in
+ * order over the snapshot therefore reproduces the latest state, and replaying one twice is
+ * harmless. Once the journal outgrows the snapshot, {@link StatsManager} writes a new snapshot
+ * and starts a new journal.
+ * <p>
+ * The header names the snapshot the journal applies to (its length and checksum), so a
+ * journal left behind by a crash between writing a new snapshot and resetting the journal is
+ * recognised as stale and discarded. Each batch carries its own CRC and is fsynced; a batch
+ * torn by a crash fails the check and is cut off on replay.
+ * <pre>
+ * header: int magic "NPPJ", byte format version, long snapshot fingerprint
+ * batch:  int payload length, payload, int CRC32 of payload
+ *   payload: varint total players ever protected, varint column count,
+ *            varint record count, then per record:
+ *              long uuid msb, long uuid lsb, varint name length + UTF-8 bytes, varint per column
+ * </pre>
+ * Not thread-safe; {@link StatsManager} calls in while holding its I/O lock.
+ */
+final class StatsJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x4E50504A; // "NPPJ"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 13;
+
+    private final FileChannel channel;
+    private boolean stale; // open discarded a journal for another snapshot
+    private boolean torn;  // replay cut off a damaged tail
+    private long size;
+
+    private StatsJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Open the journal for the snapshot with the given {@link StatsSnapshot#fingerprint},
+     * starting it over if it is missing or belongs to another snapshot.
+     */
+    static StatsJournal open(File file, long snapshot) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        StatsJournal journal = new StatsJournal(channel);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            boolean matches = header.position() == HEADER_SIZE && header.getInt(0) == MAGIC
+                    && header.get(4) == VERSION && header.getLong(5) == snapshot;
+            if (!matches) {
+                journal.stale = channel.size() > 0;
+                header.clear();
+                header.putInt(MAGIC).put(VERSION).putLong(snapshot).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                channel.force(false);
+            }
+            journal.size = channel.size();
+            channel.position(journal.size);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Whether {@link #open} found a journal for another snapshot and discarded it. */
+    boolean discardedStale() {
+        return stale;
+    }
+
+    /** Bytes in the journal, header included. */
+    long size() {
+        return size;
+    }
+
+    // ── Replay ───────────────────────────────────────────────────────────────
+
+    /**
+     * Apply every intact batch to the store, cut off anything after the first damaged one,
+     * and return the latest total players ever protected ({@code total} if there are none).
+     */
+    int replay(StatsStore store, int total) throws IOException {
+        long position = HEADER_SIZE;
+        long end = channel.size();
+        while (end - position >= 8) {
+            ByteBuffer frame = ByteBuffer.allocate(4);
+            readFully(frame, position);
+            int length = frame.getInt(0);
+            if (length <= 0 || length > end - position - 8) break;
+            ByteBuffer payload = ByteBuffer.allocate(length + 4);
+            readFully(payload, position + 4);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array(), 0, length);
+            if (payload.getInt(length) != (int) crc.getValue()) break;
+            total = apply(payload.array(), length, store);
+            position += 8 + length;
+        }
+        if (position != end) {
+            channel.truncate(position);
+            channel.force(false);
+            torn = true;
+        }
+        channel.position(position);
+        size = position;
+        return total;
+    }
+
+    /** Whether {@link #replay} found a damaged tail and cut it off. */
+    boolean cutTornBatch() {
+        return torn;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of journal");
+        }
+    }
+
+    private static int apply(byte[] data, int length, StatsStore store) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, length));
+        int total = StatsSnapshot.readVarInt(in);
+        int columns = StatsSnapshot.readVarInt(in);
+        int records = StatsSnapshot.readVarInt(in);
+        for (int i = 0; i < records; i++) {
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            byte[] utf8 = new byte[StatsSnapshot.readVarInt(in)];
+            in.readFully(utf8);
+            String name = new String(utf8, StandardCharsets.UTF_8);
+            int id = store.getOrAdd(uuid, name);
+            store.setName(id, name);
+            for (int column = 0; column < columns; column++) {
+                int value = StatsSnapshot.readVarInt(in);
+                if (column < StatsStore.COLUMN_COUNT) store.set(column, id, value);
+            }
+        }
+        return total;
+    }
+
+    // ── Append ───────────────────────────────────────────────────────────────
+
+    /** Append the records and total as one batch and fsync it. */
+    void append(Collection<StatsStorage.Record> records, int totalPlayersEverProtected) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + records.size() * 40);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length, filled in below
+        StatsSnapshot.writeVarInt(out, totalPlayersEverProtected);
+        StatsSnapshot.writeVarInt(out, StatsStore.COLUMN_COUNT);
+        StatsSnapshot.writeVarInt(out, records.size());
+        for (StatsStorage.Record record : records) {
+            out.writeLong(record.uuid().getMostSignificantBits());
+            out.writeLong(record.uuid().getLeastSignificantBits());
+            byte[] utf8 = record.name().getBytes(StandardCharsets.UTF_8);
+            StatsSnapshot.writeVarInt(out, utf8.length);
+            out.write(utf8);
+            for (int value : record.values()) StatsSnapshot.writeVarInt(out, value);
+        }
+        out.writeInt(0); // CRC, filled in below
+        out.flush();
+
+        ByteBuffer batch = ByteBuffer.wrap(bytes.toByteArray());
+        int length = batch.capacity() - 8;
+        CRC32 crc = new CRC32();
+        crc.update(batch.array(), 4, length);
+        batch.putInt(0, length).putInt(4 + length, (int) crc.getValue());
+
+        long start = channel.position();
+        try {
+            while (batch.hasRemaining()) channel.write(batch);
+            channel.force(false);
+            size = channel.position();
+        } catch (IOException e) {
+            // Leave no partial batch behind for the next append to follow
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
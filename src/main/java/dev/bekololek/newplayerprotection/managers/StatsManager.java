@@ -1,61 +1,270 @@
 package dev.bekololek.newplayerprotection.managers;
 
 import dev.bekololek.newplayerprotection.Main;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
+/**
+ * Per-player and global protection statistics.
+ * <p>
+ * Damage events may fire on several region threads at once under Folia. Recording only
+ * bumps striped counters in {@link StatDeltas}; an aggregation pass folds them into the
+ * store on a fixed cadence. Every method that touches the store, the leaderboards or the
+ * running totals holds this manager's monitor.
+ * <p>
+ * With {@code stats.paging.enabled}, or with SQL storage, the store only holds online and
+ * recently used players; everyone else stays in {@code stats.pages} or the database
+ * (see {@link StatsPager}).
+ * <p>
+ * Each per-player stat also exists over the last minute, hour, day and week, named with a
+ * {@code _1m}, {@code _1h}, {@code _1d} or {@code _1w} suffix (see {@link RollingWindows}).
+ */
 public class StatsManager {
 
     private final Main plugin;
+    private final File snapshotFile;
+    private final File journalFile;
     private final File statsFile;
-    private final Map<UUID, PlayerStats> players = new HashMap<>();
+    private final File pagesFile;
+    private final File topFile;
+    private final File historyFile;
+    private StatsHistory history; // null unless enabled and open
+    private long sampledAttacksBlocked; // totals at the last history sample
+    private int sampledEverProtected;
+    private long lastExportMillis;
+    private long exportedVersion = -1; // version and protected count in the last stats.yml
+    private int exportedProtected = -1;
+    private long lastActivityMillis; // last aggregation that recorded anything
+    private long version; // bumped under the monitor by every change that needs saving
+    private long savedVersion; // version on disk; guarded by ioLock
+    private StatsJournal journal; // full mode, once stats.bin is read or written; guarded by ioLock
+    private long snapshotBytes;
+    private final SqlStorage sqlStorage; // null for file storage
+    private StatsPager pager; // null unless paging is enabled
+    private final Object ioLock = new Object(); // serializes page write-backs
+    private long accessClock;
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> loading = ConcurrentHashMap.newKeySet();
+    private final NameIndex nameIndex = new NameIndex();
+    private final StatsStore store = new StatsStore();
+    private final StatDeltas deltas = new StatDeltas();
+    private final RollingWindows windows = new RollingWindows();
+    private final LeaderboardIndex[] leaderboards = new LeaderboardIndex[StatsStore.COLUMN_COUNT];
     private int totalPlayersEverProtected;
+    private long totalAttacksBlocked; // running sum of the attacks_blocked column
+    private final List<Consumer<UUID>> changeListeners = new CopyOnWriteArrayList<>();
+
+    /** stats.journal may grow to the size of stats.bin, and at least this, before a rewrite. */
+    private static final long MIN_JOURNAL_BYTES = 64 * 1024;
 
     // ── Stat schema ──────────────────────────────────────────────────────────
     // Defines every stat the website can render. Order here = display order.
     // Types: "int", "double", "string" — must match what is stored in the file.
 
-    private static final List<StatDef> PLAYER_SCHEMA = List.of(
+    private static final List<StatDef> PLAYER_SCHEMA = withWindows(List.of(
             new StatDef("attacks_blocked",    "Attacks Blocked",    "int", null, true),
             new StatDef("attacks_prevented",  "Attacks Prevented",  "int", null, true)
-    );
+    ));
 
-    private static final List<StatDef> GLOBAL_SCHEMA = List.of(
+    private static final List<StatDef> GLOBAL_SCHEMA = withWindows(List.of(
             new StatDef("total_attacks_blocked",       "Total Attacks Blocked",       "int", null, false),
             new StatDef("total_players_protected",     "Currently Protected Players", "int", null, false),
             new StatDef("total_players_ever_protected", "Total Players Ever Protected", "int", null, false)
-    );
-
-    record StatDef(String key, String label, String type, String unit, boolean leaderboard) {}
+    ));
+
+    public record StatDef(String key, String label, String type, String unit, boolean leaderboard) {}
+
+    /** Follow each attack counter with its rolling-window variants. */
+    private static List<StatDef> withWindows(List<StatDef> defs) {
+        List<StatDef> out = new ArrayList<>();
+        for (StatDef def : defs) {
+            out.add(def);
+            if (!def.key().endsWith("attacks_blocked") && !def.key().endsWith("attacks_prevented")) continue;
+            for (RollingWindows.Window window : RollingWindows.Window.values()) {
+                out.add(new StatDef(def.key() + "_" + window.suffix, def.label() + " (" + window.label + ")",
+                        def.type(), def.unit(), def.leaderboard()));
+            }
+        }
+        return List.copyOf(out);
+    }
 
-    public StatsManager(Main plugin) {
+    /** {@code sqlStorage} is the open database when {@code storage.type} is SQL, else null. */
+    public StatsManager(Main plugin, SqlStorage sqlStorage) {
         this.plugin = plugin;
+        this.sqlStorage = sqlStorage;
+        this.snapshotFile = new File(plugin.getDataFolder(), "stats.bin");
+        this.journalFile = new File(plugin.getDataFolder(), "stats.journal");
         this.statsFile = new File(plugin.getDataFolder(), "stats.yml");
+        this.pagesFile = new File(plugin.getDataFolder(), "stats.pages");
+        this.topFile = new File(plugin.getDataFolder(), "stats.top");
+        this.historyFile = new File(plugin.getDataFolder(), "stats.history");
+        for (int column = 0; column < StatsStore.COLUMN_COUNT; column++) {
+            leaderboards[column] = new LeaderboardIndex(store, column);
+        }
     }
 
-    // ── Data class ───────────────────────────────────────────────────────────
+    // ── Load / Save ──────────────────────────────────────────────────────────
+    // stats.bin is the primary store, with players changed since it was written appended
+    // to stats.journal. stats.yml is a derived export for the website and is only read
+    // when migrating from a version that had no binary snapshot. In paging mode
+    // stats.pages takes over from stats.bin.
+
+    public synchronized void load() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            onlinePlayers.add(player.getUniqueId());
+            nameIndex.put(player.getUniqueId(), player.getName());
+        }
+        if (sqlStorage != null || plugin.getSettings().pagingEnabled()) {
+            loadPaged();
+            return;
+        }
+
+        if (pagesFile.exists() && (!snapshotFile.exists() || pagesFile.lastModified() > snapshotFile.lastModified())) {
+            // Paging was switched off: stats.pages holds the latest data
+            plugin.getLogger().info("Importing stats.pages.");
+            importPages();
+        } else if (!loadFull()) {
+            return;
+        }
 
-    public static class PlayerStats {
-        String name;
-        int attacksBlocked;
-        int attacksPrevented;
+        // Without a readable stats.bin to journal against, the first save writes one
+        if (journal == null) version++;
+        for (LeaderboardIndex leaderboard : leaderboards) {
+            leaderboard.rebuild();
+        }
+        List<NameIndex.Entry> names = new ArrayList<>(store.size());
+        for (int id = 0; id < store.size(); id++) {
+            names.add(new NameIndex.Entry(store.uuid(id), store.name(id)));
+        }
+        nameIndex.putAll(names);
+        plugin.getLogger().info("Loaded stats for " + store.size() + " players.");
     }
 
-    // ── Load / Save ──────────────────────────────────────────────────────────
+    /**
+     * Load stats.bin plus stats.journal, or stats.yml when there is no snapshot. Returns
+     * false if neither exists.
+     */
+    private boolean loadFull() {
+        if (snapshotFile.exists()) {
+            try {
+                byte[] snapshot = Files.readAllBytes(snapshotFile.toPath());
+                totalPlayersEverProtected = StatsSnapshot.decode(snapshot, store);
+                replayJournal(snapshot);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE,
+                        "Failed to read stats.bin, falling back to stats.yml", e);
+                loadYaml();
+            }
+        } else if (statsFile.exists()) {
+            plugin.getLogger().info("No stats.bin found, importing stats.yml.");
+            loadYaml();
+        } else {
+            return false;
+        }
 
-    public void load() {
+        totalAttacksBlocked = 0;
+        for (int id = 0; id < store.size(); id++) {
+            totalAttacksBlocked += store.get(StatsStore.ATTACKS_BLOCKED, id);
+        }
+        return true;
+    }
+
+    /** Apply stats.journal on top of the snapshot just decoded and keep it open for appends. */
+    private void replayJournal(byte[] snapshot) {
+        try {
+            journal = StatsJournal.open(journalFile, StatsSnapshot.fingerprint(snapshot));
+            if (journal.discardedStale()) {
+                plugin.getLogger().info("Discarded a stats.journal written before the current stats.bin.");
+            }
+            totalPlayersEverProtected = journal.replay(store, totalPlayersEverProtected);
+            if (journal.cutTornBatch()) {
+                plugin.getLogger().warning("Discarding incomplete trailing batch in stats.journal.");
+            }
+            snapshotBytes = snapshot.length;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE,
+                    "Failed to read stats.journal, stats since the last full save may be lost", e);
+            closeJournal();
+        }
+    }
+
+    private void importPages() {
+        try (StatsPageFile pages = StatsPageFile.open(pagesFile)) {
+            pages.forEach(record -> {
+                int id = store.getOrAdd(record.uuid(), record.name());
+                for (int c = 0; c < StatsStore.COLUMN_COUNT; c++) store.set(c, id, record.values()[c]);
+            });
+            totalPlayersEverProtected = pages.totalPlayersEverProtected();
+            totalAttacksBlocked = pages.totalAttacksBlocked();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to import stats.pages, using stats.bin", e);
+            store.clear();
+            loadFull();
+        }
+    }
+
+    private void loadPaged() {
+        int leaderboardSize = plugin.getSettings().pagingLeaderboardSize();
+        int maxResident = plugin.getSettings().pagingMaxCachedPlayers();
+        int stored;
+        try {
+            StatsStorage storage = sqlStorage != null ? sqlStorage.stats() : StatsPageFile.open(pagesFile);
+            // The first paged start migrates whatever the full-mode files hold
+            if (storage.count() == 0) loadFull();
+            closeJournal();
+            pager = StatsPager.open(plugin, storage, sqlStorage != null ? null : topFile,
+                    leaderboardSize, maxResident, store, totalPlayersEverProtected, totalAttacksBlocked);
+            totalPlayersEverProtected = pager.totalPlayersEverProtected();
+            totalAttacksBlocked = pager.totalAttacksBlocked();
+            stored = pager.storedCount();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to open paged stats, keeping all stats in memory", e);
+            pager = null;
+            store.clear();
+            loadFull();
+            for (LeaderboardIndex leaderboard : leaderboards) leaderboard.rebuild();
+            return;
+        }
+        store.clear();
+        for (UUID uuid : onlinePlayers) {
+            StatsStorage.Record record = pager.fetch(uuid);
+            if (record != null) pager.admit(store, record);
+        }
+        plugin.getLogger().info("Paging stats for " + stored + " players ("
+                + store.size() + " resident).");
+
+        // Names of non-resident players are only on disk; index them in the background
+        StatsStorage storage = pager.storage();
+        plugin.getTaskScheduler().runAsync(() -> {
+            try {
+                List<NameIndex.Entry> names = new ArrayList<>();
+                storage.forEach(record -> names.add(new NameIndex.Entry(record.uuid(), record.name())));
+                nameIndex.putAll(names);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to index player names", e);
+            }
+        });
+    }
+
+    private void loadYaml() {
         if (!statsFile.exists()) return;
         YamlConfiguration yaml = YamlConfiguration.loadConfiguration(statsFile);
 
@@ -75,25 +284,276 @@ public class StatsManager {
             ConfigurationSection sec = playersSection.getConfigurationSection(uuidStr);
             if (sec == null) continue;
 
-            PlayerStats ps = new PlayerStats();
-            ps.name = sec.getString("name", "Unknown");
-            ps.attacksBlocked = sec.getInt("attacks_blocked", 0);
-            ps.attacksPrevented = sec.getInt("attacks_prevented", 0);
-            players.put(uuid, ps);
+            int id = store.getOrAdd(uuid, sec.getString("name", "Unknown"));
+            store.set(StatsStore.ATTACKS_BLOCKED, id, sec.getInt("attacks_blocked", 0));
+            store.set(StatsStore.ATTACKS_PREVENTED, id, sec.getInt("attacks_prevented", 0));
         }
-        plugin.getLogger().info("Loaded stats for " + players.size() + " players.");
     }
 
     public void save() {
-        saveToYaml(true);
+        persist(true);
+        StatsHistory open = history;
+        if (open != null) plugin.getTaskScheduler().runAsync(open::force);
     }
 
     /** Synchronous save — use during onDisable when async tasks cannot be scheduled. */
     public void saveSync() {
-        saveToYaml(false);
+        persist(false);
+        synchronized (ioLock) {
+            closeJournal();
+        }
+        if (pager != null) pager.close();
+        if (history != null) {
+            try {
+                history.close();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to close stats.history", e);
+            }
+            history = null;
+        }
+    }
+
+    /** Write what changed since the last save, plus the YAML export when it is enabled and due. */
+    private void persist(boolean async) {
+        Runnable write = pager != null ? () -> flushPages(!async) : () -> writeFull(!async);
+        if (async) {
+            plugin.getTaskScheduler().runAsync(plugin.getMetrics().trackSave(write));
+        } else {
+            write.run();
+        }
+    }
+
+    /**
+     * Full-mode save. Does nothing when no stat changed since the last save; otherwise
+     * appends the changed players to stats.journal, or writes a new stats.bin once the
+     * journal has outgrown it. The monitor is held only to copy the counters, names and
+     * dirty players out; encoding and building the YAML export happen without it, and
+     * {@link #ioLock} keeps saves in order.
+     */
+    private void writeFull(boolean forceExport) {
+        aggregate();
+        synchronized (ioLock) {
+            long saving;
+            int everProtected;
+            StatsStore.Columns columns = null;
+            List<StatsStorage.Record> dirty = null;
+            ExportData export = null;
+            synchronized (this) {
+                saving = version;
+                everProtected = totalPlayersEverProtected;
+                if (saving != savedVersion) {
+                    if (journal == null || journal.size() > Math.max(snapshotBytes, MIN_JOURNAL_BYTES)) {
+                        columns = store.copyColumns();
+                        store.clearDirty();
+                    } else {
+                        dirty = store.collectDirty();
+                    }
+                }
+                if (isYamlExportDue(forceExport)) {
+                    export = copyExportData(columns != null ? columns : store.copyColumns());
+                    markExported();
+                }
+            }
+
+            if (columns != null) {
+                try {
+                    writeSnapshot(StatsSnapshot.encode(columns, everProtected), saving);
+                } catch (IOException e) {
+                    // savedVersion stays behind, so the next save tries a full stats.bin again
+                    plugin.getLogger().log(Level.SEVERE, "Failed to encode stats snapshot", e);
+                }
+            } else if (dirty != null) {
+                try {
+                    long start = System.nanoTime();
+                    journal.append(dirty, everProtected);
+                    plugin.getMetrics().recordSave(journalFile, start);
+                    savedVersion = saving;
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to append to stats.journal", e);
+                    closeJournal(); // the next save writes a full stats.bin instead
+                }
+            }
+            if (export != null) saveYaml(buildYamlExport(export));
+        }
+    }
+
+    /** Replace stats.bin and start a journal for it. Caller holds {@link #ioLock}. */
+    private void writeSnapshot(byte[] snapshot, long saving) {
+        closeJournal();
+        try {
+            long start = System.nanoTime();
+            StatsSnapshot.writeAtomically(snapshot, snapshotFile);
+            plugin.getMetrics().recordSave(snapshotFile, start);
+            savedVersion = saving;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save stats.bin", e);
+            return;
+        }
+        try {
+            journal = StatsJournal.open(journalFile, StatsSnapshot.fingerprint(snapshot));
+            snapshotBytes = snapshot.length;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to reset stats.journal", e);
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close stats.journal", e);
+        }
+        journal = null;
+    }
+
+    /**
+     * Paging write-back: copy dirty players out under the monitor, write them to
+     * storage without it, then trim the resident set. Holding {@link #ioLock} throughout
+     * keeps eviction from dropping players whose records are still being written.
+     * Storage is left alone when no stat changed since the last write-back.
+     */
+    private void flushPages(boolean forceExport) {
+        aggregate();
+        synchronized (ioLock) {
+            long saving;
+            List<StatsStorage.Record> dirty = List.of();
+            int everProtected;
+            long attacksBlocked;
+            byte[] top = null;
+            ExportData export = null;
+            synchronized (this) {
+                saving = version;
+                if (saving != savedVersion) {
+                    dirty = store.collectDirty();
+                    top = pager.encodeTop();
+                }
+                everProtected = totalPlayersEverProtected;
+                attacksBlocked = totalAttacksBlocked;
+                if (isYamlExportDue(forceExport)) {
+                    export = copyExportData(null); // players are read back from storage below
+                    markExported();
+                }
+            }
+
+            try {
+                if (saving != savedVersion) {
+                    pager.writeBack(dirty, everProtected, attacksBlocked, top);
+                    savedVersion = saving;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to save paged stats", e);
+                synchronized (this) {
+                    for (StatsStorage.Record record : dirty) {
+                        int id = store.indexOf(record.uuid());
+                        if (id >= 0) store.setDirty(id, true);
+                    }
+                }
+                return;
+            }
+
+            synchronized (this) {
+                pager.evict(store, onlinePlayers);
+            }
+
+            if (export != null) {
+                YamlConfiguration yaml = buildYamlExport(export);
+                try {
+                    pager.storage().forEach(record -> exportPlayer(yaml, record.uuid(), record.name(),
+                            record.values()[StatsStore.ATTACKS_BLOCKED],
+                            record.values()[StatsStore.ATTACKS_PREVENTED]));
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.SEVERE, "Failed to read paged stats for export", e);
+                    return;
+                }
+                saveYaml(yaml);
+            }
+        }
+    }
+
+    private void saveYaml(YamlConfiguration yaml) {
+        try {
+            long start = System.nanoTime();
+            StatsSnapshot.writeAtomically(yaml.saveToString().getBytes(StandardCharsets.UTF_8), statsFile);
+            plugin.getMetrics().recordSave(statsFile, start);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save stats.yml", e);
+        }
+    }
+
+    /**
+     * Whether stats.yml should be rewritten now. It is skipped while nothing in it has
+     * changed: no stat, no protected count, and every rolling window had already run empty
+     * at the last export. Caller must hold the monitor.
+     */
+    private boolean isYamlExportDue(boolean force) {
+        if (!plugin.getSettings().yamlExportEnabled()) return false;
+        if (!force && System.currentTimeMillis() - lastExportMillis < plugin.getSettings().yamlExportIntervalMillis()) {
+            return false;
+        }
+        return version != exportedVersion
+                || plugin.getProtectionManager().getProtectedCount() != exportedProtected
+                || lastExportMillis - lastActivityMillis <= RollingWindows.RETENTION_MILLIS;
+    }
+
+    private void markExported() {
+        lastExportMillis = System.currentTimeMillis();
+        exportedVersion = version;
+        exportedProtected = plugin.getProtectionManager().getProtectedCount();
+    }
+
+    /** What stats.yml is built from, copied out under the monitor so the export is built without it. */
+    private record ExportData(StatsStore.Columns players, long totalAttacksBlocked, int protectedCount,
+                              int totalPlayersEverProtected, int[] globalAttacksBlocked,
+                              List<WindowValues> windows) {}
+
+    /** One player's per-window values of one column. */
+    private record WindowValues(UUID uuid, int column, int[] values) {}
+
+    /**
+     * Copy the global values and rolling windows for the export, with {@code players} as the
+     * player section (null to leave it out). Caller must hold the monitor.
+     */
+    private ExportData copyExportData(StatsStore.Columns players) {
+        long now = System.currentTimeMillis();
+        int[] global = new int[RollingWindows.Window.values().length];
+        for (RollingWindows.Window window : RollingWindows.Window.values()) {
+            global[window.ordinal()] = windows.global(StatsStore.ATTACKS_BLOCKED, window, now);
+        }
+        List<WindowValues> perPlayer = new ArrayList<>();
+        for (int column = 0; column < StatsStore.COLUMN_COUNT; column++) {
+            int c = column;
+            windows.forEach(column, now, (uuid, values) -> perPlayer.add(new WindowValues(uuid, c, values.clone())));
+        }
+        return new ExportData(players, totalAttacksBlocked, plugin.getProtectionManager().getProtectedCount(),
+                totalPlayersEverProtected, global, perPlayer);
+    }
+
+    /** Build the website-facing stats.yml: schema, global values and per-player stats. Needs no lock. */
+    private static YamlConfiguration buildYamlExport(ExportData data) {
+        YamlConfiguration yaml = exportHeader(data);
+        StatsStore.Columns players = data.players();
+        if (players != null) {
+            for (int id = 0; id < players.size(); id++) {
+                exportPlayer(yaml, players.uuid(id), players.name(id),
+                        players.get(StatsStore.ATTACKS_BLOCKED, id), players.get(StatsStore.ATTACKS_PREVENTED, id));
+            }
+        }
+        exportWindows(yaml, data);
+        return yaml;
+    }
+
+    /** Build stats.yml from the current stats, copying under the monitor. Package-private for the export benchmark. */
+    YamlConfiguration buildYamlExport() {
+        ExportData data;
+        synchronized (this) {
+            data = copyExportData(store.copyColumns());
+        }
+        return buildYamlExport(data);
     }
 
-    private void saveToYaml(boolean async) {
+    /** Everything in stats.yml except the player section. */
+    private static YamlConfiguration exportHeader(ExportData data) {
         YamlConfiguration yaml = new YamlConfiguration();
 
         // ── Plugin identity ──────────────────────────────────────────────────
@@ -118,118 +578,428 @@ public class StatsManager {
         }
 
         // ── Global values ────────────────────────────────────────────────────
-        yaml.set("global.total_attacks_blocked",
-                players.values().stream().mapToInt(p -> p.attacksBlocked).sum());
-        yaml.set("global.total_players_protected",
-                plugin.getProtectionManager().getProtectedCount());
-        yaml.set("global.total_players_ever_protected", totalPlayersEverProtected);
-
-        // ── Player data ──────────────────────────────────────────────────────
-        for (var entry : players.entrySet()) {
-            String path = "players." + entry.getKey().toString();
-            PlayerStats ps = entry.getValue();
-            yaml.set(path + ".name", ps.name);
-            yaml.set(path + ".attacks_blocked", ps.attacksBlocked);
-            yaml.set(path + ".attacks_prevented", ps.attacksPrevented);
+        yaml.set("global.total_attacks_blocked", data.totalAttacksBlocked());
+        yaml.set("global.total_players_protected", data.protectedCount());
+        yaml.set("global.total_players_ever_protected", data.totalPlayersEverProtected());
+        for (RollingWindows.Window window : RollingWindows.Window.values()) {
+            yaml.set("global.total_attacks_blocked_" + window.suffix,
+                    data.globalAttacksBlocked()[window.ordinal()]);
         }
+        return yaml;
+    }
 
-        if (async) {
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    try {
-                        yaml.save(statsFile);
-                    } catch (IOException e) {
-                        plugin.getLogger().log(Level.SEVERE, "Failed to save stats.yml", e);
-                    }
-                }
-            }.runTaskAsynchronously(plugin);
-        } else {
-            try {
-                yaml.save(statsFile);
-            } catch (IOException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to save stats.yml", e);
+    /** Rolling-window values, for players with activity in the last week only; a missing value means 0. */
+    private static void exportWindows(YamlConfiguration yaml, ExportData data) {
+        for (WindowValues player : data.windows()) {
+            String stat = player.column() == StatsStore.ATTACKS_BLOCKED ? "attacks_blocked" : "attacks_prevented";
+            String path = "players." + player.uuid() + "." + stat + "_";
+            for (RollingWindows.Window window : RollingWindows.Window.values()) {
+                yaml.set(path + window.suffix, player.values()[window.ordinal()]);
             }
         }
     }
 
+    private static void exportPlayer(YamlConfiguration yaml, UUID uuid, String name,
+                                     int attacksBlocked, int attacksPrevented) {
+        String path = "players." + uuid.toString();
+        yaml.set(path + ".name", name);
+        yaml.set(path + ".attacks_blocked", attacksBlocked);
+        yaml.set(path + ".attacks_prevented", attacksPrevented);
+    }
+
     public void startAutoSave() {
-        new BukkitRunnable() {
-            @Override
-            public void run() { save(); }
-        }.runTaskTimer(plugin, 6000L, 6000L); // every 5 minutes
+        long period = 6000L; // every 5 minutes
+        if (pager != null) {
+            period = plugin.getSettings().pagingFlushIntervalTicks();
+        }
+        plugin.getTaskScheduler().runTimer(this::save, period, period);
+    }
+
+    /** Start folding recorded increments into the store every {@code stats.aggregate-interval-ticks}. */
+    public void startAggregation() {
+        long period = plugin.getSettings().statsAggregateIntervalTicks();
+        // Async: in paging mode a fold may have to read a player back from storage
+        plugin.getTaskScheduler().runTimer(
+                () -> plugin.getTaskScheduler().runAsync(this::aggregate), period, period);
+    }
+
+    // ── History ──────────────────────────────────────────────────────────────
+
+    /** Open stats.history and sample the global stats into it every {@code stats.history.interval-seconds}. */
+    public void startHistory() {
+        var settings = plugin.getSettings();
+        if (!settings.historyEnabled()) return;
+        try {
+            history = StatsHistory.open(historyFile, new int[]{
+                    settings.historyRawRecords(), settings.historyHourlyRecords(), settings.historyDailyRecords()});
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to open stats.history, history is disabled", e);
+            return;
+        }
+        synchronized (this) {
+            sampledAttacksBlocked = totalAttacksBlocked;
+            sampledEverProtected = totalPlayersEverProtected;
+        }
+        long period = settings.historyIntervalTicks();
+        plugin.getTaskScheduler().runTimer(
+                () -> plugin.getTaskScheduler().runAsync(this::sampleHistory), period, period);
+    }
+
+    private void sampleHistory() {
+        StatsHistory open = history;
+        if (open == null) return;
+        aggregate();
+        long attacksBlocked;
+        int attacksDelta;
+        int grantsDelta;
+        synchronized (this) {
+            attacksBlocked = totalAttacksBlocked;
+            attacksDelta = (int) Math.max(0, attacksBlocked - sampledAttacksBlocked);
+            grantsDelta = Math.max(0, totalPlayersEverProtected - sampledEverProtected);
+            sampledAttacksBlocked = attacksBlocked;
+            sampledEverProtected = totalPlayersEverProtected;
+        }
+        open.append(System.currentTimeMillis(), attacksBlocked, attacksDelta, grantsDelta,
+                plugin.getProtectionManager().getProtectedCount());
+    }
+
+    /** Changes whenever stats.history is written to; -1 when history is disabled. */
+    public long getHistoryRevision() {
+        StatsHistory open = history;
+        return open == null ? -1 : open.revision();
+    }
+
+    /**
+     * Visit the history records with {@code from <= time < to}, oldest first. Returns false,
+     * without visiting anything, when history is disabled.
+     */
+    public boolean queryHistory(StatsHistory.Resolution resolution, long from, long to,
+                                StatsHistory.Visitor visitor) {
+        StatsHistory open = history;
+        if (open == null) return false;
+        open.query(resolution, from, to, visitor);
+        return true;
     }
 
     // ── Recording ────────────────────────────────────────────────────────────
 
-    private PlayerStats getOrCreate(UUID uuid, String name) {
-        PlayerStats ps = players.computeIfAbsent(uuid, k -> new PlayerStats());
-        ps.name = name;
-        return ps;
+    /** Id for the player in the store, registering new ids with every leaderboard. */
+    private int idFor(UUID uuid, String name) {
+        int id = store.getOrAdd(uuid, name);
+        if (id == leaderboards[0].size()) {
+            for (LeaderboardIndex leaderboard : leaderboards) leaderboard.append(id);
+        }
+        return id;
     }
 
+    /** Add to one counter, through the full leaderboards or the pager's top store. */
+    private void increment(int column, UUID uuid, String name, int delta) {
+        if (pager == null) {
+            int id = idFor(uuid, name);
+            leaderboards[column].increment(id, delta);
+            store.setDirty(id, true);
+            return;
+        }
+        int id = store.indexOf(uuid); // aggregate only folds resident players
+        store.setName(id, name);
+        store.set(column, id, store.get(column, id) + delta);
+        store.touch(id, ++accessClock);
+        store.setDirty(id, true);
+        pager.offerTop(store, id, column, delta);
+    }
+
+    // The record methods are lock-free and may be called from any thread. Their effect
+    // becomes visible to readers with the next aggregation pass.
+
     public void recordAttackBlocked(UUID victimUuid, String victimName) {
-        PlayerStats ps = getOrCreate(victimUuid, victimName);
-        ps.attacksBlocked++;
+        deltas.increment(StatsStore.ATTACKS_BLOCKED, victimUuid, victimName);
     }
 
     public void recordAttackPrevented(UUID attackerUuid, String attackerName) {
-        PlayerStats ps = getOrCreate(attackerUuid, attackerName);
-        ps.attacksPrevented++;
+        deltas.increment(StatsStore.ATTACKS_PREVENTED, attackerUuid, attackerName);
     }
 
     public void recordNewProtection() {
-        totalPlayersEverProtected++;
+        deltas.protectionsGranted(1);
+    }
+
+    public void recordNewProtections(int count) {
+        deltas.protectionsGranted(count);
+    }
+
+    /**
+     * Fold everything recorded since the last pass into the store, the leaderboards and
+     * the running totals, then notify change listeners. Runs on the aggregation timer and
+     * before every save, so readers lag recording by at most one interval.
+     */
+    public void aggregate() {
+        if (pager != null) loadPending();
+        Set<UUID> changed = new HashSet<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            int granted = deltas.takeProtectionsGranted();
+            totalPlayersEverProtected += granted;
+            // Paging: players still being read keep their deltas until they are resident
+            deltas.drain((uuid, name, column, delta) -> {
+                increment(column, uuid, name, delta);
+                if (column == StatsStore.ATTACKS_BLOCKED) totalAttacksBlocked += delta;
+                windows.add(uuid, name, column, delta, now);
+                changed.add(uuid);
+            }, uuid -> pager == null || store.indexOf(uuid) >= 0);
+            if (granted > 0 || !changed.isEmpty()) version++;
+            if (!changed.isEmpty()) lastActivityMillis = now;
+            windows.prune(now);
+        }
+        deltas.retireIdle();
+        for (UUID uuid : changed) fireChange(uuid);
+    }
+
+    /**
+     * Paging: make players with buffered deltas resident before folding them in. Usually
+     * they already are, preloaded on join; a player hit before that read finished is read
+     * here, without the monitor, so readers never wait on storage. Players whose read fails
+     * stay buffered and are tried again on the next pass.
+     */
+    private void loadPending() {
+        List<Map.Entry<UUID, String>> missing = new ArrayList<>();
+        synchronized (this) {
+            deltas.forEachPending((uuid, name) -> {
+                if (store.indexOf(uuid) < 0) missing.add(Map.entry(uuid, name));
+            });
+        }
+        for (Map.Entry<UUID, String> player : missing) {
+            StatsStorage.Record record;
+            try {
+                record = pager.storage().read(player.getKey());
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to read player stats", e);
+                continue;
+            }
+            synchronized (this) {
+                // Never stored before: start them at zero
+                pager.admit(store, record != null ? record
+                        : new StatsStorage.Record(player.getKey(), player.getValue(), new int[StatsStore.COLUMN_COUNT]));
+                int id = store.indexOf(player.getKey());
+                if (id >= 0) store.touch(id, ++accessClock);
+            }
+        }
+    }
+
+    /** Update cached name on join. In paging mode this also preloads the player's stats. */
+    public synchronized void updateName(Player player) {
+        UUID uuid = player.getUniqueId();
+        onlinePlayers.add(uuid);
+        nameIndex.put(uuid, player.getName());
+        int id = store.indexOf(uuid);
+        if (id >= 0) {
+            if (!player.getName().equals(store.name(id))) {
+                store.setName(id, player.getName());
+                store.setDirty(id, true);
+                version++;
+            }
+        } else if (pager != null) {
+            requestLoad(uuid, null);
+        }
     }
 
-    /** Update cached name on join. */
-    public void updateName(Player player) {
-        PlayerStats ps = players.get(player.getUniqueId());
-        if (ps != null) ps.name = player.getName();
+    /** Online players are never evicted; after quitting they age out like anyone else. */
+    public void playerQuit(Player player) {
+        onlinePlayers.remove(player.getUniqueId());
+    }
+
+    // ── Paging ───────────────────────────────────────────────────────────────
+
+    /**
+     * Run {@code then} once the player's stats are in memory. Runs immediately unless
+     * paging is enabled and the player is not resident, in which case {@code then} runs
+     * on an async thread after the disk read.
+     */
+    public void ensureLoaded(UUID uuid, Runnable then) {
+        boolean resident;
+        synchronized (this) {
+            resident = pager == null || store.indexOf(uuid) >= 0;
+        }
+        if (resident) {
+            then.run();
+        } else {
+            requestLoad(uuid, then);
+        }
+    }
+
+    /** Read a player from paged storage off-thread. Callback-less requests are deduplicated. */
+    private void requestLoad(UUID uuid, Runnable then) {
+        if (then == null && !loading.add(uuid)) return;
+        plugin.getTaskScheduler().runAsync(() -> {
+            try {
+                StatsStorage.Record record = pager.fetch(uuid);
+                if (record != null) {
+                    synchronized (this) {
+                        pager.admit(store, record);
+                        int id = store.indexOf(uuid);
+                        if (id >= 0) store.touch(id, ++accessClock);
+                    }
+                    fireChange(uuid);
+                }
+            } finally {
+                if (then == null) loading.remove(uuid);
+            }
+            if (then != null) then.run();
+        });
+    }
+
+    /** Players currently held in memory: everyone in full mode, the resident set when paging. */
+    public synchronized int getResidentCount() {
+        return store.size();
+    }
+
+    /** Players with a recording buffer: everyone hit within the last 600 aggregation passes. */
+    public int getPendingCount() {
+        return deltas.size();
+    }
+
+    /** Name → UUID lookup for every player with stats or seen joining. */
+    public NameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    // ── Change listeners ─────────────────────────────────────────────────────
+
+    /**
+     * Register a callback for changes to a player's stats. The callback receives the
+     * player's UUID, or null when everything was reloaded.
+     */
+    public void addChangeListener(Consumer<UUID> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void fireChange(UUID uuid) {
+        for (Consumer<UUID> listener : changeListeners) {
+            listener.accept(uuid);
+        }
     }
 
     // ── Per-player stat access ───────────────────────────────────────────────
 
-    public Object getPlayerStat(UUID uuid, String statName) {
-        PlayerStats ps = players.get(uuid);
-        if (ps == null) return 0;
-        return switch (statName.toLowerCase()) {
-            case "attacks_blocked" -> ps.attacksBlocked;
-            case "attacks_prevented" -> ps.attacksPrevented;
-            default -> 0;
-        };
+    /**
+     * In paging mode a player who is not resident reads as 0 while their stats are fetched
+     * in the background; a change event follows once they arrive.
+     */
+    public synchronized Object getPlayerStat(UUID uuid, String statName) {
+        int column = StatsStore.column(statName);
+        if (column < 0) {
+            RollingWindows.Stat windowed = RollingWindows.Stat.parse(statName);
+            if (windowed == null) return 0;
+            return windows.get(uuid, windowed.column(), windowed.window(), System.currentTimeMillis());
+        }
+        int id = store.indexOf(uuid);
+        if (id < 0) {
+            if (pager != null) requestLoad(uuid, null);
+            return 0;
+        }
+        if (pager != null) store.touch(id, ++accessClock);
+        return store.get(column, id);
     }
 
     // ── Global stat access ───────────────────────────────────────────────────
+    // All globals are running values, so lookups cost the same regardless of data size.
 
-    public Object getGlobalStat(String statName) {
+    public synchronized Object getGlobalStat(String statName) {
         return switch (statName.toLowerCase()) {
             case "total_attacks_blocked" ->
-                    players.values().stream().mapToInt(p -> p.attacksBlocked).sum();
+                    totalAttacksBlocked;
             case "total_players_protected" ->
                     plugin.getProtectionManager().getProtectedCount();
             case "total_players_ever_protected" ->
                     totalPlayersEverProtected;
-            default -> 0;
+            default -> globalWindow(statName);
         };
     }
 
+    /** {@code total_attacks_blocked_1h} and friends; 0 for unknown names. */
+    private int globalWindow(String statName) {
+        if (!statName.toLowerCase().startsWith("total_")) return 0;
+        RollingWindows.Stat windowed = RollingWindows.Stat.parse(statName.substring(6));
+        if (windowed == null) return 0;
+        return windows.global(windowed.column(), windowed.window(), System.currentTimeMillis());
+    }
+
     // ── Leaderboard ──────────────────────────────────────────────────────────
 
-    /** Returns top players sorted descending by the given stat. Each entry is name -> value. */
-    public List<Map.Entry<String, Number>> getTopPlayers(String statName, int limit) {
-        List<Map.Entry<String, Number>> list = new ArrayList<>();
-        for (var entry : players.entrySet()) {
-            PlayerStats ps = entry.getValue();
-            Number value = switch (statName.toLowerCase()) {
-                case "attacks_blocked" -> ps.attacksBlocked;
-                case "attacks_prevented" -> ps.attacksPrevented;
-                default -> 0;
-            };
-            list.add(new AbstractMap.SimpleEntry<>(ps.name, value));
-        }
-        list.sort((a, b) -> Double.compare(b.getValue().doubleValue(), a.getValue().doubleValue()));
-        return list.subList(0, Math.min(limit, list.size()));
+    /**
+     * Returns top players sorted descending by the given stat. Each entry is name -> value.
+     * Reads straight from the leaderboard index, so the cost depends only on {@code limit}.
+     * In paging mode only the first {@code stats.paging.leaderboard-size} places exist.
+     * Rolling-window leaderboards keep the first {@value RollingWindows#TOP_SIZE} places.
+     */
+    public synchronized List<Map.Entry<String, Number>> getTopPlayers(String statName, int limit) {
+        int column = StatsStore.column(statName);
+        if (column < 0) {
+            List<Map.Entry<String, Number>> ranked = windowTop(statName);
+            return ranked.subList(0, Math.min(limit, ranked.size()));
+        }
+        StatsStore source = boardStore();
+        LeaderboardIndex leaderboard = board(column);
+        int count = Math.min(limit, boardSize(leaderboard));
+        List<Map.Entry<String, Number>> list = new ArrayList<>(count);
+        for (int r = 0; r < count; r++) {
+            int id = leaderboard.idAt(r);
+            list.add(new AbstractMap.SimpleEntry<>(source.name(id), source.get(column, id)));
+        }
+        return list;
+    }
+
+    /** Entry at a one-based leaderboard position, or null if there is nobody there. */
+    public synchronized Map.Entry<String, Number> getTopEntry(String statName, int position) {
+        int column = StatsStore.column(statName);
+        if (column < 0) {
+            List<Map.Entry<String, Number>> ranked = windowTop(statName);
+            return position >= 1 && position <= ranked.size() ? ranked.get(position - 1) : null;
+        }
+        LeaderboardIndex leaderboard = board(column);
+        if (position < 1 || position > boardSize(leaderboard)) return null;
+        int id = leaderboard.idAt(position - 1);
+        StatsStore source = boardStore();
+        return new AbstractMap.SimpleEntry<>(source.name(id), source.get(column, id));
+    }
+
+    private List<Map.Entry<String, Number>> windowTop(String statName) {
+        RollingWindows.Stat windowed = RollingWindows.Stat.parse(statName);
+        if (windowed == null) return List.of();
+        return windows.top(windowed.column(), windowed.window(), System.currentTimeMillis());
+    }
+
+    private StatsStore boardStore() {
+        return pager == null ? store : pager.topStore();
+    }
+
+    private LeaderboardIndex board(int column) {
+        return pager == null ? leaderboards[column] : pager.topBoard(column);
+    }
+
+    private int boardSize(LeaderboardIndex leaderboard) {
+        return pager == null ? leaderboard.size() : Math.min(leaderboard.size(), pager.leaderboardSize());
+    }
+
+    public static List<StatDef> playerSchema() {
+        return PLAYER_SCHEMA;
+    }
+
+    public static List<StatDef> globalSchema() {
+        return GLOBAL_SCHEMA;
+    }
+
+    /** Whether a stat is a rolling-window variant, whose value changes as time passes. */
+    public static boolean isWindowStat(String statName) {
+        return RollingWindows.Stat.parse(statName) != null;
+    }
+
+    /**
+     * How often a rolling-window stat can change with nothing recorded, as old buckets age
+     * out (no change event fires for that); 0 if the name is not a window stat.
+     */
+    public static long windowBucketMillis(String statName) {
+        RollingWindows.Stat stat = RollingWindows.Stat.parse(statName);
+        return stat == null ? 0 : stat.window().bucketMillis();
     }
 
     /** Valid stat names for leaderboard display (derived from schema). */
@@ -0,0 +1,279 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Disk-resident open-addressing hash table of fixed-size player records ({@code stats.pages}).
+ * <p>
+ * A lookup hashes the UUID to a slot and probes forward with positional reads, so nothing
+ * but the header is held in memory and opening the file costs the same regardless of how
+ * many players it holds. The table doubles (rewritten into a new file) once it is half full.
+ * <pre>
+ * header (64 bytes): int magic "NPPG", int version, int column count, int capacity,
+ *                    int record count, int total players ever protected,
+ *                    long total attacks blocked
+ * record (64 bytes): long uuid msb, long uuid lsb, int per column, byte name length,
+ *                    name bytes (UTF-8, at most 32), zero padding
+ * </pre>
+ * An all-zero UUID marks an empty slot.
+ */
+final class StatsPageFile implements StatsStorage {
+
+    private static final int MAGIC = 0x4E505047; // "NPPG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    private static final int NAME_BYTES = 32;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final File file;
+    private FileChannel channel;
+    private int capacity;
+    private int count;
+    private int totalPlayersEverProtected;
+    private long totalAttacksBlocked;
+
+    private StatsPageFile(File file) {
+        this.file = file;
+    }
+
+    /** Open an existing page file, or create an empty one. */
+    static StatsPageFile open(File file) throws IOException {
+        StatsPageFile pages = new StatsPageFile(file);
+        boolean exists = file.exists() && file.length() >= HEADER_SIZE;
+        pages.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (exists) {
+            pages.readHeader();
+        } else {
+            pages.capacity = INITIAL_CAPACITY;
+            pages.channel.truncate(0);
+            pages.writeHeader();
+            pages.channel.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) INITIAL_CAPACITY * RECORD_SIZE - 1);
+        }
+        return pages;
+    }
+
+    // ── Header ───────────────────────────────────────────────────────────────
+
+    @Override
+    public synchronized int count() {
+        return count;
+    }
+
+    @Override
+    public synchronized int totalPlayersEverProtected() {
+        return totalPlayersEverProtected;
+    }
+
+    @Override
+    public synchronized long totalAttacksBlocked() {
+        return totalAttacksBlocked;
+    }
+
+    private void setTotals(int totalPlayersEverProtected, long totalAttacksBlocked) throws IOException {
+        this.totalPlayersEverProtected = totalPlayersEverProtected;
+        this.totalAttacksBlocked = totalAttacksBlocked;
+        writeHeader();
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(buf, 0);
+        buf.flip();
+        if (buf.getInt() != MAGIC) throw new IOException("Not a stats page file");
+        int version = buf.getInt();
+        if (version != VERSION) throw new IOException("Unsupported page file version " + version);
+        int columns = buf.getInt();
+        if (columns != StatsStore.COLUMN_COUNT) {
+            throw new IOException("Page file has " + columns + " columns, expected " + StatsStore.COLUMN_COUNT);
+        }
+        capacity = buf.getInt();
+        count = buf.getInt();
+        totalPlayersEverProtected = buf.getInt();
+        totalAttacksBlocked = buf.getLong();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(StatsStore.COLUMN_COUNT)
+                .putInt(capacity).putInt(count).putInt(totalPlayersEverProtected)
+                .putLong(totalAttacksBlocked);
+        buf.clear();
+        channel.write(buf, 0);
+    }
+
+    // ── Records ──────────────────────────────────────────────────────────────
+
+    @Override
+    public synchronized Record read(UUID uuid) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        findSlot(uuid, buf);
+        return isEmpty(buf) ? null : decode(buf);
+    }
+
+    /** Insert or overwrite a record. */
+    synchronized void write(Record record) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        long slot = findSlot(record.uuid(), buf);
+        if (isEmpty(buf)) {
+            if ((count + 1) * 2 > capacity) {
+                grow();
+                write(record);
+                return;
+            }
+            count++;
+            writeHeader();
+        }
+        channel.write(encode(record), HEADER_SIZE + slot * RECORD_SIZE);
+    }
+
+    /** Visit every stored record in slot order with sequential reads. */
+    @Override
+    public synchronized void forEach(Consumer<Record> visitor) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD_SIZE * 256);
+        long end = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        for (long pos = HEADER_SIZE; pos < end; pos += chunk.capacity()) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), end - pos));
+            readFully(chunk, pos);
+            chunk.flip();
+            while (chunk.remaining() >= RECORD_SIZE) {
+                ByteBuffer record = chunk.slice(chunk.position(), RECORD_SIZE);
+                chunk.position(chunk.position() + RECORD_SIZE);
+                if (!isEmpty(record)) visitor.accept(decode(record));
+            }
+        }
+    }
+
+    /** Write each record, then the totals, then flush to the storage device. */
+    @Override
+    public synchronized void writeBatch(Collection<Record> records, int totalPlayersEverProtected,
+                                        long totalAttacksBlocked) throws IOException {
+        for (Record record : records) {
+            write(record);
+        }
+        setTotals(totalPlayersEverProtected, totalAttacksBlocked);
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // ── Internals ────────────────────────────────────────────────────────────
+
+    /**
+     * Probe for the UUID. Returns the slot holding it, or the empty slot where it would go;
+     * {@code buf} is left holding that slot's bytes.
+     */
+    private long findSlot(UUID uuid, ByteBuffer buf) throws IOException {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        int mask = capacity - 1;
+        for (int slot = StatsStore.hash(most, least) & mask; ; slot = (slot + 1) & mask) {
+            buf.clear();
+            readFully(buf, HEADER_SIZE + (long) slot * RECORD_SIZE);
+            buf.flip();
+            if (isEmpty(buf)) return slot;
+            if (buf.getLong(0) == most && buf.getLong(8) == least) return slot;
+        }
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position);
+            if (n < 0) {
+                // Sparse tail past the last write reads as zeros
+                while (buf.hasRemaining()) buf.put((byte) 0);
+                return;
+            }
+            position += n;
+        }
+    }
+
+    private static boolean isEmpty(ByteBuffer buf) {
+        return buf.getLong(0) == 0L && buf.getLong(8) == 0L;
+    }
+
+    private static ByteBuffer encode(Record record) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        buf.putLong(record.uuid().getMostSignificantBits());
+        buf.putLong(record.uuid().getLeastSignificantBits());
+        for (int c = 0; c < StatsStore.COLUMN_COUNT; c++) buf.putInt(record.values()[c]);
+        byte[] name = truncatedUtf8(record.name());
+        buf.put((byte) name.length);
+        buf.put(name);
+        buf.clear();
+        return buf;
+    }
+
+    private static Record decode(ByteBuffer buf) {
+        UUID uuid = new UUID(buf.getLong(0), buf.getLong(8));
+        int[] values = new int[StatsStore.COLUMN_COUNT];
+        int pos = 16;
+        for (int c = 0; c < values.length; c++, pos += 4) values[c] = buf.getInt(pos);
+        int length = buf.get(pos) & 0xFF;
+        byte[] name = new byte[length];
+        buf.get(pos + 1, name);
+        return new Record(uuid, new String(name, StandardCharsets.UTF_8), values);
+    }
+
+    /** UTF-8 bytes of the name, cut at a character boundary to fit the record. */
+    private static byte[] truncatedUtf8(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= NAME_BYTES) return bytes;
+        int end = NAME_BYTES;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) end--;
+        byte[] cut = new byte[end];
+        System.arraycopy(bytes, 0, cut, 0, end);
+        return cut;
+    }
+
+    /** Rehash into a file of twice the capacity and swap it in. */
+    private void grow() throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        Files.deleteIfExists(tmp.toPath());
+        StatsPageFile bigger = new StatsPageFile(tmp);
+        bigger.channel = FileChannel.open(tmp.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        bigger.capacity = capacity * 2;
+        bigger.totalPlayersEverProtected = totalPlayersEverProtected;
+        bigger.totalAttacksBlocked = totalAttacksBlocked;
+        bigger.channel.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) bigger.capacity * RECORD_SIZE - 1);
+
+        IOException[] failure = new IOException[1];
+        forEach(record -> {
+            if (failure[0] != null) return;
+            try {
+                bigger.write(record);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            bigger.close();
+            throw failure[0];
+        }
+        bigger.writeHeader();
+        bigger.channel.force(false);
+        bigger.close();
+        channel.close();
+
+        Files.move(tmp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        readHeader();
+    }
+}
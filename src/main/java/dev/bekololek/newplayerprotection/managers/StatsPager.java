@@ -0,0 +1,242 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import dev.bekololek.newplayerprotection.Main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Paging mode for {@link StatsManager}.
+ * <p>
+ * The full dataset lives in a {@link StatsStorage} (the {@code stats.pages} file or an SQL
+ * table); the manager's {@link StatsStore} only holds online players plus a bounded set of
+ * recently used ones, and is trimmed least recently used first after each write-back.
+ * Leaderboards cannot be ranked from a partial store, so the pager keeps a small separate
+ * store of the top N players per stat and updates it as resident players' counters grow.
+ * For the page file that store is cached in {@code stats.top}, since ranking the file
+ * means scanning it; SQL storage answers the same query from an index.
+ * <p>
+ * Methods that take a {@link StatsStore} must be called while holding the manager's monitor.
+ */
+final class StatsPager {
+
+    private final Main plugin;
+    private final StatsStorage storage;
+    private final File topFile; // null when the storage ranks cheaply itself
+    private final int leaderboardSize;
+    private final int maxResident;
+
+    private StatsStore top = new StatsStore();
+    private LeaderboardIndex[] topBoards = newBoards(top);
+
+    private StatsPager(Main plugin, StatsStorage storage, File topFile, int leaderboardSize, int maxResident) {
+        this.plugin = plugin;
+        this.storage = storage;
+        this.topFile = topFile;
+        this.leaderboardSize = Math.max(1, leaderboardSize);
+        this.maxResident = Math.max(1, maxResident);
+    }
+
+    /**
+     * Start paging over {@code storage}. When the storage is still empty, {@code seed} (the
+     * fully loaded store) and the seed totals are migrated into it.
+     */
+    static StatsPager open(Main plugin, StatsStorage storage, File topFile, int leaderboardSize, int maxResident,
+                           StatsStore seed, int seedEverProtected, long seedAttacksBlocked) throws IOException {
+        StatsPager pager = new StatsPager(plugin, storage, topFile, leaderboardSize, maxResident);
+
+        if (storage.count() == 0 && (seed.size() > 0 || seedEverProtected > 0)) {
+            plugin.getLogger().info("Migrating stats for " + seed.size() + " players to paged storage.");
+            List<StatsStorage.Record> records = new ArrayList<>(seed.size());
+            for (int id = 0; id < seed.size(); id++) {
+                records.add(seed.record(id));
+            }
+            storage.writeBatch(records, seedEverProtected, seedAttacksBlocked);
+            pager.rebuildTop();
+        } else if (!pager.loadTop()) {
+            pager.rebuildTop();
+        }
+        return pager;
+    }
+
+    int totalPlayersEverProtected() throws IOException {
+        return storage.totalPlayersEverProtected();
+    }
+
+    long totalAttacksBlocked() throws IOException {
+        return storage.totalAttacksBlocked();
+    }
+
+    int storedCount() throws IOException {
+        return storage.count();
+    }
+
+    StatsStorage storage() {
+        return storage;
+    }
+
+    // ── Residency ────────────────────────────────────────────────────────────
+
+    /** Read a player's record from disk. Safe to call without the manager's monitor. */
+    StatsStorage.Record fetch(UUID uuid) {
+        try {
+            return storage.read(uuid);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to read player stats", e);
+            return null;
+        }
+    }
+
+    /** Insert a fetched record into the store unless the player became resident meanwhile. */
+    void admit(StatsStore store, StatsStorage.Record record) {
+        if (store.indexOf(record.uuid()) >= 0) return;
+        int id = store.getOrAdd(record.uuid(), record.name());
+        for (int c = 0; c < StatsStore.COLUMN_COUNT; c++) store.set(c, id, record.values()[c]);
+    }
+
+    /** Write records and totals to storage. Runs without the manager's monitor. */
+    void writeBack(List<StatsStorage.Record> records, int everProtected, long attacksBlocked,
+                   byte[] topSnapshot) throws IOException {
+        storage.writeBatch(records, everProtected, attacksBlocked);
+        if (topSnapshot != null) StatsSnapshot.writeAtomically(topSnapshot, topFile);
+    }
+
+    /** Drop least recently used players that are offline and clean until the cap is met. */
+    void evict(StatsStore store, Set<UUID> online) {
+        int excess = store.size() - maxResident;
+        if (excess <= 0) return;
+
+        List<Integer> candidates = new ArrayList<>();
+        for (int id = 0; id < store.size(); id++) {
+            if (!store.isDirty(id) && !online.contains(store.uuid(id))) candidates.add(id);
+        }
+        candidates.sort(Comparator.comparingLong(store::stamp));
+
+        // Removal renumbers ids, so resolve victims to UUIDs first
+        List<UUID> victims = new ArrayList<>();
+        for (int i = 0; i < Math.min(excess, candidates.size()); i++) {
+            victims.add(store.uuid(candidates.get(i)));
+        }
+        for (UUID uuid : victims) {
+            store.remove(store.indexOf(uuid));
+        }
+    }
+
+    void close() {
+        try {
+            storage.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close stats storage", e);
+        }
+    }
+
+    // ── Leaderboards ─────────────────────────────────────────────────────────
+
+    StatsStore topStore() {
+        return top;
+    }
+
+    LeaderboardIndex topBoard(int column) {
+        return topBoards[column];
+    }
+
+    int leaderboardSize() {
+        return leaderboardSize;
+    }
+
+    /** Mirror an increment by {@code delta} of a resident player's counter into the top store. */
+    void offerTop(StatsStore store, int id, int column, int delta) {
+        int t = top.indexOf(store.uuidMost(id), store.uuidLeast(id));
+        if (t >= 0) {
+            top.setName(t, store.name(id));
+            topBoards[column].increment(t, delta);
+            return;
+        }
+
+        LeaderboardIndex board = topBoards[column];
+        int value = store.get(column, id);
+        if (board.size() >= leaderboardSize
+                && value <= top.get(column, board.idAt(leaderboardSize - 1))) {
+            return;
+        }
+
+        t = top.getOrAdd(store.uuid(id), store.name(id));
+        for (int c = 0; c < StatsStore.COLUMN_COUNT; c++) top.set(c, t, store.get(c, id));
+        if (top.size() > leaderboardSize * (StatsStore.COLUMN_COUNT + 1)) {
+            pruneTop();
+        } else {
+            for (LeaderboardIndex b : topBoards) b.rebuild();
+        }
+    }
+
+    /** Encode the top store for {@code stats.top}, or null when it is not cached on disk. */
+    byte[] encodeTop() {
+        if (topFile == null) return null;
+        try {
+            return StatsSnapshot.encode(top, 0);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to encode stats.top", e);
+            return null;
+        }
+    }
+
+    private boolean loadTop() {
+        if (topFile == null || !topFile.exists()) return false;
+        try {
+            StatsStore loaded = new StatsStore();
+            StatsSnapshot.decode(Files.readAllBytes(topFile.toPath()), loaded);
+            setTop(loaded);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to read stats.top, rebuilding it", e);
+            return false;
+        }
+    }
+
+    /** Ask the storage for the best N players of each stat. */
+    private void rebuildTop() throws IOException {
+        StatsStore rebuilt = new StatsStore();
+        for (int column = 0; column < StatsStore.COLUMN_COUNT; column++) {
+            for (StatsStorage.Record record : storage.top(column, leaderboardSize)) {
+                int id = rebuilt.getOrAdd(record.uuid(), record.name());
+                for (int c = 0; c < StatsStore.COLUMN_COUNT; c++) rebuilt.set(c, id, record.values()[c]);
+            }
+        }
+        setTop(rebuilt);
+    }
+
+    /** Keep only players ranked within the top N of at least one stat. */
+    private void pruneTop() {
+        for (LeaderboardIndex b : topBoards) b.rebuild();
+        Set<Integer> keep = new HashSet<>();
+        for (LeaderboardIndex b : topBoards) {
+            for (int r = 0; r < Math.min(leaderboardSize, b.size()); r++) keep.add(b.idAt(r));
+        }
+        StatsStore pruned = new StatsStore();
+        for (int id : keep) {
+            int p = pruned.getOrAdd(top.uuid(id), top.name(id));
+            for (int c = 0; c < StatsStore.COLUMN_COUNT; c++) pruned.set(c, p, top.get(c, id));
+        }
+        setTop(pruned);
+    }
+
+    private void setTop(StatsStore store) {
+        top = store;
+        topBoards = newBoards(store);
+        for (LeaderboardIndex b : topBoards) b.rebuild();
+    }
+
+    private static LeaderboardIndex[] newBoards(StatsStore store) {
+        LeaderboardIndex[] boards = new LeaderboardIndex[StatsStore.COLUMN_COUNT];
+        for (int c = 0; c < boards.length; c++) boards[c] = new LeaderboardIndex(store, c);
+        return boards;
+    }
+}
@@ -0,0 +1,180 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary encoding of a {@link StatsStore}, used as the primary stats file.
+ * <pre>
+ * int     magic "NPPS"
+ * byte    format version
+ * varint  total players ever protected
+ * varint  column count
+ * varint  string count, then per string: varint byte length + UTF-8 bytes
+ * varint  player count, then per player:
+ *           long uuid msb, long uuid lsb, varint name index, varint per column
+ * int     CRC32 of everything above
+ * </pre>
+ */
+final class StatsSnapshot {
+
+    private static final int MAGIC = 0x4E505053; // "NPPS"
+    private static final byte VERSION = 1;
+
+    private StatsSnapshot() {}
+
+    /** Encode the store. Caller must hold whatever lock guards the store. */
+    static byte[] encode(StatsStore store, int totalPlayersEverProtected) throws IOException {
+        return encode(store.copyColumns(), totalPlayersEverProtected);
+    }
+
+    /** Encode players copied out of a store; needs no lock. */
+    static byte[] encode(StatsStore.Columns store, int totalPlayersEverProtected) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + store.size() * 24);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, totalPlayersEverProtected);
+        writeVarInt(out, StatsStore.COLUMN_COUNT);
+
+        // String table: each distinct name is written once and referenced by index
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] nameRefs = new int[store.size()];
+        for (int id = 0; id < store.size(); id++) {
+            String name = store.name(id);
+            Integer index = stringIndex.get(name);
+            if (index == null) {
+                index = strings.size();
+                stringIndex.put(name, index);
+                strings.add(name);
+            }
+            nameRefs[id] = index;
+        }
+        writeVarInt(out, strings.size());
+        for (String s : strings) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, utf8.length);
+            out.write(utf8);
+        }
+
+        writeVarInt(out, store.size());
+        for (int id = 0; id < store.size(); id++) {
+            UUID uuid = store.uuid(id);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            writeVarInt(out, nameRefs[id]);
+            for (int column = 0; column < StatsStore.COLUMN_COUNT; column++) {
+                writeVarInt(out, store.get(column, id));
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode into an empty store and return the total players ever protected.
+     * Throws if the file is truncated, corrupted or written by an unknown version.
+     */
+    static int decode(byte[] data, StatsStore store) throws IOException {
+        if (data.length < 9) throw new IOException("File too short");
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        if (ByteBuffer.wrap(data, data.length - 4, 4).getInt() != (int) crc.getValue()) {
+            throw new IOException("Checksum mismatch");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));
+        if (in.readInt() != MAGIC) throw new IOException("Not a stats snapshot");
+        byte version = in.readByte();
+        if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+        int totalPlayersEverProtected = readVarInt(in);
+        int columns = readVarInt(in);
+
+        String[] strings = new String[readVarInt(in)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] utf8 = new byte[readVarInt(in)];
+            in.readFully(utf8);
+            strings[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        int players = readVarInt(in);
+        for (int i = 0; i < players; i++) {
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            int id = store.getOrAdd(uuid, strings[readVarInt(in)]);
+            for (int column = 0; column < columns; column++) {
+                int value = readVarInt(in);
+                // Columns added by a newer build are skipped, missing ones stay zero
+                if (column < StatsStore.COLUMN_COUNT) store.set(column, id, value);
+            }
+        }
+        return totalPlayersEverProtected;
+    }
+
+    /** Length and checksum of an encoded snapshot, naming it for {@link StatsJournal}. */
+    static long fingerprint(byte[] data) {
+        int crc = data.length < 4 ? 0 : ByteBuffer.wrap(data, data.length - 4, 4).getInt();
+        return ((long) data.length << 32) | (crc & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Write through a temp file, fsync it, then move it into place, so neither readers nor
+     * a crash mid-write ever leave a partial file behind.
+     */
+    static void writeAtomically(byte[] data, File file) throws IOException {
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(tmp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ── Varints (unsigned LEB128) ────────────────────────────────────────────
+
+    static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new IOException("Unexpected end of snapshot");
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,50 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Record-level backend behind {@link StatsPager}: a keyed table of per-player counters plus
+ * the global totals. Implemented by {@link StatsPageFile} and by {@link SqlStorage}.
+ */
+interface StatsStorage extends AutoCloseable {
+
+    record Record(UUID uuid, String name, int[] values) {}
+
+    int count() throws IOException;
+
+    int totalPlayersEverProtected() throws IOException;
+
+    long totalAttacksBlocked() throws IOException;
+
+    /** The stored record, or null if the player has never been written. */
+    Record read(UUID uuid) throws IOException;
+
+    /** Insert or overwrite the records and store the totals as one durable batch. */
+    void writeBatch(Collection<Record> records, int totalPlayersEverProtected, long totalAttacksBlocked)
+            throws IOException;
+
+    /** Visit every stored record. */
+    void forEach(Consumer<Record> visitor) throws IOException;
+
+    /** The best {@code limit} records by a column, highest first. The default scans everything. */
+    default List<Record> top(int column, int limit) throws IOException {
+        PriorityQueue<Record> heap = new PriorityQueue<>(Comparator.comparingInt(r -> r.values()[column]));
+        forEach(record -> {
+            heap.add(record);
+            if (heap.size() > limit) heap.poll();
+        });
+        List<Record> best = new ArrayList<>(heap);
+        best.sort(Comparator.comparingInt((Record r) -> r.values()[column]).reversed());
+        return best;
+    }
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,281 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Column-oriented storage for per-player stats.
+ * <p>
+ * Every player gets a dense id on first sight. UUIDs, names and each stat counter live in
+ * parallel arrays indexed by that id, and an open-addressing table keyed on the two UUID
+ * longs maps a player to their id. Compared with a {@code HashMap<UUID, PlayerStats>} this
+ * drops the map entry, the boxed UUID and the per-player stats object, leaving roughly
+ * 36 bytes per player plus the name.
+ * <p>
+ * Ids stay dense: {@link #remove(int)} moves the last player into the freed id, so ids are
+ * only stable until the next removal. Callers that remove entries must not hold ids.
+ */
+final class StatsStore {
+
+    static final int ATTACKS_BLOCKED = 0;
+    static final int ATTACKS_PREVENTED = 1;
+    static final int COLUMN_COUNT = 2;
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] uuidMost = new long[INITIAL_CAPACITY];
+    private long[] uuidLeast = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private final int[][] columns = new int[COLUMN_COUNT][INITIAL_CAPACITY];
+    private long[] stamps = new long[INITIAL_CAPACITY];   // last access, for LRU eviction
+    private boolean[] dirty = new boolean[INITIAL_CAPACITY]; // changed since last write-back
+    private int size;
+
+    // Open-addressing index, linear probing, kept at most half full. Slots hold ids.
+    private int[] table = newTable(INITIAL_CAPACITY * 2);
+
+    /** Column for a stat name, or -1 if the stat is not stored per player. */
+    static int column(String statName) {
+        return switch (statName.toLowerCase()) {
+            case "attacks_blocked" -> ATTACKS_BLOCKED;
+            case "attacks_prevented" -> ATTACKS_PREVENTED;
+            default -> -1;
+        };
+    }
+
+    // ── Lookup ───────────────────────────────────────────────────────────────
+
+    int size() {
+        return size;
+    }
+
+    /** Id of the player, or -1 if they have no stats. */
+    int indexOf(UUID uuid) {
+        return indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /** Id of the player with the given UUID halves, or -1 if they have no stats. */
+    int indexOf(long most, long least) {
+        int mask = table.length - 1;
+        for (int slot = hash(most, least) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) return -1;
+            if (uuidMost[id] == most && uuidLeast[id] == least) return id;
+        }
+    }
+
+    /** Id of the player, allocating one with zeroed counters if needed. Updates the name. */
+    int getOrAdd(UUID uuid, String name) {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        int mask = table.length - 1;
+        int slot = hash(most, least) & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) break;
+            if (uuidMost[id] == most && uuidLeast[id] == least) {
+                setName(id, name);
+                return id;
+            }
+        }
+
+        if (size == uuidMost.length) {
+            grow();
+            return getOrAdd(uuid, name);
+        }
+
+        int id = size++;
+        uuidMost[id] = most;
+        uuidLeast[id] = least;
+        names[id] = name.intern();
+        table[slot] = id;
+        return id;
+    }
+
+    UUID uuid(int id) {
+        return new UUID(uuidMost[id], uuidLeast[id]);
+    }
+
+    long uuidMost(int id) {
+        return uuidMost[id];
+    }
+
+    long uuidLeast(int id) {
+        return uuidLeast[id];
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    /** Replace the stored name. Unchanged names keep the existing instance. */
+    void setName(int id, String name) {
+        if (!name.equals(names[id])) names[id] = name.intern();
+    }
+
+    /**
+     * Remove a player. The player with the highest id takes over the freed id, and the
+     * index table is repaired with backward-shift deletion so probes stay unbroken.
+     */
+    void remove(int id) {
+        int mask = table.length - 1;
+        int hole = slotOf(id);
+        table[hole] = EMPTY;
+        for (int slot = (hole + 1) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int other = table[slot];
+            int home = hash(uuidMost[other], uuidLeast[other]) & mask;
+            // Move the entry into the hole unless its home lies cyclically in (hole, slot]
+            boolean inRange = hole <= slot
+                    ? home > hole && home <= slot
+                    : home > hole || home <= slot;
+            if (!inRange) {
+                table[hole] = other;
+                table[slot] = EMPTY;
+                hole = slot;
+            }
+        }
+
+        int last = --size;
+        if (id != last) {
+            table[slotOf(last)] = id;
+            uuidMost[id] = uuidMost[last];
+            uuidLeast[id] = uuidLeast[last];
+            names[id] = names[last];
+            for (int c = 0; c < COLUMN_COUNT; c++) columns[c][id] = columns[c][last];
+            stamps[id] = stamps[last];
+            dirty[id] = dirty[last];
+        }
+        names[last] = null;
+        for (int c = 0; c < COLUMN_COUNT; c++) columns[c][last] = 0;
+        stamps[last] = 0;
+        dirty[last] = false;
+    }
+
+    /** Remove every player, keeping the allocated capacity. */
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        Arrays.fill(names, 0, size, null);
+        for (int c = 0; c < COLUMN_COUNT; c++) Arrays.fill(columns[c], 0, size, 0);
+        Arrays.fill(stamps, 0, size, 0L);
+        Arrays.fill(dirty, 0, size, false);
+        size = 0;
+    }
+
+    private int slotOf(int id) {
+        int mask = table.length - 1;
+        int slot = hash(uuidMost[id], uuidLeast[id]) & mask;
+        while (table[slot] != id) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    // ── Access stamps / dirty flags ──────────────────────────────────────────
+
+    long stamp(int id) {
+        return stamps[id];
+    }
+
+    void touch(int id, long stamp) {
+        stamps[id] = stamp;
+    }
+
+    boolean isDirty(int id) {
+        return dirty[id];
+    }
+
+    void setDirty(int id, boolean value) {
+        dirty[id] = value;
+    }
+
+    /** Copy out every dirty player and clear their flags. */
+    List<StatsStorage.Record> collectDirty() {
+        List<StatsStorage.Record> records = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            if (!dirty[id]) continue;
+            records.add(record(id));
+            dirty[id] = false;
+        }
+        return records;
+    }
+
+    /** Clear every dirty flag, once the whole store has been written. */
+    void clearDirty() {
+        Arrays.fill(dirty, 0, size, false);
+    }
+
+    // ── Counters ─────────────────────────────────────────────────────────────
+
+    int get(int column, int id) {
+        return columns[column][id];
+    }
+
+    void set(int column, int id, int value) {
+        columns[column][id] = value;
+    }
+
+    /** Copy of every player's UUID, name and counters, for encoding without the store's lock. */
+    Columns copyColumns() {
+        int[][] values = new int[COLUMN_COUNT][];
+        for (int c = 0; c < COLUMN_COUNT; c++) values[c] = Arrays.copyOf(columns[c], size);
+        return new Columns(size, Arrays.copyOf(uuidMost, size), Arrays.copyOf(uuidLeast, size),
+                Arrays.copyOf(names, size), values);
+    }
+
+    /** Players and counters copied out by {@link #copyColumns}, indexed by the ids at copy time. */
+    record Columns(int size, long[] uuidMost, long[] uuidLeast, String[] names, int[][] values) {
+
+        UUID uuid(int id) {
+            return new UUID(uuidMost[id], uuidLeast[id]);
+        }
+
+        String name(int id) {
+            return names[id];
+        }
+
+        int get(int column, int id) {
+            return values[column][id];
+        }
+    }
+
+    /** A copy of the player's name and counters. */
+    StatsStorage.Record record(int id) {
+        int[] values = new int[COLUMN_COUNT];
+        for (int c = 0; c < COLUMN_COUNT; c++) values[c] = columns[c][id];
+        return new StatsStorage.Record(uuid(id), names[id], values);
+    }
+
+    // ── Internals ────────────────────────────────────────────────────────────
+
+    private void grow() {
+        int capacity = uuidMost.length * 2;
+        uuidMost = Arrays.copyOf(uuidMost, capacity);
+        uuidLeast = Arrays.copyOf(uuidLeast, capacity);
+        names = Arrays.copyOf(names, capacity);
+        for (int c = 0; c < COLUMN_COUNT; c++) {
+            columns[c] = Arrays.copyOf(columns[c], capacity);
+        }
+        stamps = Arrays.copyOf(stamps, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+
+        table = newTable(capacity * 2);
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(uuidMost[id], uuidLeast[id]) & mask;
+            while (table[slot] != EMPTY) slot = (slot + 1) & mask;
+            table[slot] = id;
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] t = new int[capacity];
+        Arrays.fill(t, EMPTY);
+        return t;
+    }
+
+    static int hash(long most, long least) {
+        long h = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
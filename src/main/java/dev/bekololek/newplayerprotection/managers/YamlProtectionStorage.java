@@ -0,0 +1,170 @@
+package dev.bekololek.newplayerprotection.managers;
+
+import dev.bekololek.newplayerprotection.Main;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Plain {@code data.yml} storage, used when the journal is disabled: every change rewrites
+ * the whole file.
+ * <p>
+ * The storage keeps its own copy of what it was given instead of reading the manager's live
+ * map, which is cleared and refilled on reload. After the first load that copy is the state
+ * of record, so a reload never reads back a data.yml that a queued write has yet to replace.
+ * Changes made while a write is queued share it, and writes run one at a time, each taking
+ * its snapshot once it holds the write lock, so an older snapshot never replaces a newer one.
+ */
+class YamlProtectionStorage implements ProtectionStorage {
+
+    private final Main plugin;
+    private final File dataFile;
+    private final Map<UUID, Long> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private final Object writeLock = new Object();
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    YamlProtectionStorage(Main plugin, File dataFile) {
+        this.plugin = plugin;
+        this.dataFile = dataFile;
+    }
+
+    @Override
+    public Map<UUID, Long> load() {
+        if (!loaded) {
+            loaded = true;
+            if (dataFile.exists()) {
+                entries.putAll(readSnapshot(plugin, dataFile));
+            } else {
+                plugin.getLogger().info("No data.yml found, starting fresh.");
+            }
+        }
+        return liveEntries();
+    }
+
+    @Override
+    public void put(UUID uuid, long expiry) {
+        entries.put(uuid, expiry);
+        save(true);
+    }
+
+    @Override
+    public void putAll(Map<UUID, Long> entries) {
+        this.entries.putAll(entries);
+        save(true);
+    }
+
+    @Override
+    public void removeAll(Collection<UUID> uuids) {
+        entries.keySet().removeAll(uuids);
+        save(true);
+    }
+
+    /** Every change already queued a rewrite, and expired entries are left out of each one. */
+    @Override
+    public void checkpoint() {
+    }
+
+    @Override
+    public void close() {
+        save(false);
+    }
+
+    private void save(boolean async) {
+        if (!async) {
+            write();
+            return;
+        }
+        // Changes made while disabling are covered by the synchronous write in close(); the
+        // scheduler no longer accepts tasks at that point
+        if (!plugin.isEnabled()) return;
+        // A queued write that has not started yet will pick this change up
+        if (queued.compareAndSet(false, true)) {
+            plugin.getTaskScheduler().runAsync(plugin.getMetrics().trackSave(() -> {
+                queued.set(false);
+                write();
+            }));
+        }
+    }
+
+    private void write() {
+        synchronized (writeLock) {
+            Map<UUID, Long> snapshot = liveEntries();
+            try {
+                long start = System.nanoTime();
+                writeSnapshot(snapshot, dataFile);
+                plugin.getMetrics().recordSave(dataFile, start);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to save data.yml", e);
+            }
+        }
+    }
+
+    /** Leave expired entries out; the expiry task removes them and notifies the player. */
+    private Map<UUID, Long> liveEntries() {
+        long now = System.currentTimeMillis();
+        Map<UUID, Long> snapshot = new HashMap<>();
+        for (Map.Entry<UUID, Long> entry : entries.entrySet()) {
+            if (ProtectionStorage.isLive(entry.getValue(), now)) snapshot.put(entry.getKey(), entry.getValue());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Read a data.yml snapshot, skipping invalid UUIDs and entries that have already expired.
+     */
+    static Map<UUID, Long> readSnapshot(Main plugin, File file) {
+        Map<UUID, Long> result = new HashMap<>();
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection section = yaml.getConfigurationSection("protected-players");
+        if (section == null) return result;
+
+        long now = System.currentTimeMillis();
+        for (String uuidStr : section.getKeys(false)) {
+            UUID uuid;
+            try {
+                uuid = UUID.fromString(uuidStr);
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid UUID in data.yml: " + uuidStr);
+                continue;
+            }
+
+            long value = section.getLong(uuidStr);
+            if (ProtectionStorage.isLive(value, now)) {
+                result.put(uuid, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write a data.yml snapshot. The file is written to a temp file of its own next to the
+     * target and moved into place, so a crash mid-write never leaves a truncated snapshot
+     * behind and concurrent writers never share a temp file.
+     */
+    static void writeSnapshot(Map<UUID, Long> entries, File file) throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        for (Map.Entry<UUID, Long> entry : entries.entrySet()) {
+            yaml.set("protected-players." + entry.getKey().toString(), entry.getValue());
+        }
+        Path tmp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), "data", ".yml.tmp");
+        try {
+            Files.writeString(tmp, yaml.saveToString());
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -1,26 +1,41 @@
 package dev.bekololek.newplayerprotection.stats;
 
 import dev.bekololek.newplayerprotection.Main;
+import dev.bekololek.newplayerprotection.Settings;
 import dev.bekololek.newplayerprotection.managers.ProtectionManager;
 import dev.bekololek.newplayerprotection.managers.StatsManager;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class NewPlayerProtectionExpansion extends PlaceholderExpansion {
 
     private final Main plugin;
     private final StatsManager statsManager;
     private final ProtectionManager protectionManager;
+    private final PlaceholderCache cache = new PlaceholderCache();
 
     public NewPlayerProtectionExpansion(Main plugin, StatsManager statsManager,
                                         ProtectionManager protectionManager) {
         this.plugin = plugin;
         this.statsManager = statsManager;
         this.protectionManager = protectionManager;
+
+        statsManager.addChangeListener(cache::invalidate);
+        protectionManager.addChangeListener(cache::invalidate);
+        plugin.getTaskScheduler().runTimer(cache::purgeExpired, 6000L, 6000L);
+    }
+
+    /** Drop every cached value so new TTLs and messages apply. Called on plugin reload. */
+    public void reload() {
+        cache.invalidate(null);
+    }
+
+    public PlaceholderCache getCache() {
+        return cache;
     }
 
     @Override public @NotNull String getIdentifier() { return "newplayerprotection"; }
@@ -30,6 +45,48 @@ public class NewPlayerProtectionExpansion extends PlaceholderExpansion {
 
     @Override
     public String onRequest(OfflinePlayer player, @NotNull String params) {
+        plugin.getMetrics().placeholderRequest(params);
+
+        // Only stat_ placeholders depend on the viewer; everything else is shared
+        boolean playerScoped = params.startsWith("stat_");
+        if (playerScoped && player == null) return null;
+        UUID owner = playerScoped ? player.getUniqueId() : null;
+
+        String cached = cache.get(owner, params);
+        if (cached != null) return cached;
+
+        String value = resolve(player, params);
+        if (value != null) cache.put(owner, params, value, ttlFor(params));
+        return value;
+    }
+
+    /**
+     * Cache lifetime in milliseconds for a placeholder family. Rolling-window values also
+     * drop as buckets age out, which no change event reports, so they live one bucket at most.
+     */
+    private long ttlFor(String params) {
+        Settings settings = plugin.getSettings();
+        long ttl;
+        String statName;
+        if (params.startsWith("stat_")) {
+            ttl = params.equalsIgnoreCase("stat_protection_time_remaining")
+                    ? settings.timeRemainingTtlMillis() : settings.statTtlMillis();
+            statName = params.substring(5);
+        } else if (params.startsWith("global_")) {
+            ttl = settings.globalTtlMillis();
+            statName = params.substring(7);
+        } else {
+            ttl = settings.topTtlMillis();
+            // top_<stat>_<pos> and topvalue_<stat>_<pos>
+            int start = params.indexOf('_') + 1;
+            int end = params.lastIndexOf('_');
+            statName = end > start ? params.substring(start, end) : "";
+        }
+        long bucket = StatsManager.windowBucketMillis(statName);
+        return bucket > 0 ? Math.min(ttl, bucket) : ttl;
+    }
+
+    private String resolve(OfflinePlayer player, String params) {
         // %newplayerprotection_stat_<name>%
         if (params.startsWith("stat_") && player != null) {
             String statName = params.substring(5);
@@ -80,9 +137,8 @@ public class NewPlayerProtectionExpansion extends PlaceholderExpansion {
         }
         if (position < 1) return null;
 
-        List<Map.Entry<String, Number>> top = statsManager.getTopPlayers(statName, position);
-        if (position > top.size()) return valueOnly ? "0" : "-";
-        Map.Entry<String, Number> entry = top.get(position - 1);
+        Map.Entry<String, Number> entry = statsManager.getTopEntry(statName, position);
+        if (entry == null) return valueOnly ? "0" : "-";
         if (valueOnly) {
             return String.valueOf(entry.getValue());
         }
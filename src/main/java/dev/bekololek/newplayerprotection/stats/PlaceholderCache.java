@@ -0,0 +1,73 @@
+package dev.bekololek.newplayerprotection.stats;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolved placeholder strings keyed by (player, params).
+ * <p>
+ * Player-scoped values are dropped as soon as that player's stats or protection change.
+ * Values that do not depend on the viewer (globals, leaderboards) are shared by every
+ * viewer and only age out by TTL.
+ */
+public class PlaceholderCache {
+
+    private record Entry(String value, long expiresAt) {}
+
+    private final Map<UUID, Map<String, Entry>> playerEntries = new ConcurrentHashMap<>();
+    private final Map<String, Entry> sharedEntries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** Cached value, or null on a miss. {@code owner} is null for viewer-independent values. */
+    public String get(UUID owner, String params) {
+        Map<String, Entry> entries = owner == null ? sharedEntries : playerEntries.get(owner);
+        Entry entry = entries == null ? null : entries.get(params);
+        if (entry == null || entry.expiresAt() <= System.currentTimeMillis()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public void put(UUID owner, String params, String value, long ttlMillis) {
+        if (ttlMillis <= 0) return;
+        Entry entry = new Entry(value, System.currentTimeMillis() + ttlMillis);
+        if (owner == null) {
+            sharedEntries.put(params, entry);
+        } else {
+            playerEntries.computeIfAbsent(owner, k -> new ConcurrentHashMap<>()).put(params, entry);
+        }
+    }
+
+    /** Drop everything cached for one player, or everything at all when {@code owner} is null. */
+    public void invalidate(UUID owner) {
+        if (owner == null) {
+            playerEntries.clear();
+            sharedEntries.clear();
+        } else {
+            playerEntries.remove(owner);
+        }
+    }
+
+    /** Remove expired entries so players who stopped being viewed do not linger. */
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        sharedEntries.values().removeIf(e -> e.expiresAt() <= now);
+        playerEntries.values().removeIf(entries -> {
+            entries.values().removeIf(e -> e.expiresAt() <= now);
+            return entries.isEmpty();
+        });
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
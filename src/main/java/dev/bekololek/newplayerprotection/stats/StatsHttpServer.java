@@ -0,0 +1,392 @@
+package dev.bekololek.newplayerprotection.stats;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.bekololek.newplayerprotection.Main;
+import dev.bekololek.newplayerprotection.managers.NameIndex;
+import dev.bekololek.newplayerprotection.managers.ProtectionManager;
+import dev.bekololek.newplayerprotection.managers.StatsHistory;
+import dev.bekololek.newplayerprotection.managers.StatsManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Read-only JSON API for the website, bound to the loopback address.
+ * <pre>
+ * GET /api/schema                       stat keys, labels and types
+ * GET /api/global                       every global stat
+ * GET /api/top/&lt;stat&gt;[?limit=n]        leaderboard, name and value per place
+ * GET /api/player/&lt;uuid or name&gt;        every per-player stat
+ * GET /api/history?resolution=raw|hourly|daily[&amp;from=ms][&amp;to=ms]
+ * </pre>
+ * Requests run on virtual threads and read the managers directly, never the server thread.
+ * Every response carries an ETag made of a data version, bumped by the managers' change
+ * events. Bodies holding rolling-window values or protection countdowns add the current
+ * five-second bucket, so they still refresh while nothing else changes; history uses the
+ * history file's own revision instead. A matching If-None-Match gets a 304. Otherwise the
+ * body is serialized straight into the chunked response while a copy is kept per URI, and
+ * later requests for the same ETag are answered from that copy without serializing again.
+ */
+public class StatsHttpServer {
+
+    private static final int MAX_CACHED = 256;
+    private static final int MAX_LIMIT = 100;
+    private static final long WINDOW_BUCKET_MILLIS = 5_000L;
+
+    private record Cached(String etag, byte[] body) {}
+
+    /** Writes a response body; runs only when the cached copy is missing or stale. */
+    @FunctionalInterface
+    private interface Body {
+        void write(Writer out) throws IOException;
+    }
+
+    private final Main plugin;
+    private final StatsManager statsManager;
+    private final ProtectionManager protectionManager;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StatsHttpServer(Main plugin, StatsManager statsManager, ProtectionManager protectionManager) {
+        this.plugin = plugin;
+        this.statsManager = statsManager;
+        this.protectionManager = protectionManager;
+        statsManager.addChangeListener(uuid -> version.incrementAndGet());
+        protectionManager.addChangeListener(uuid -> version.incrementAndGet());
+    }
+
+    // ── Lifecycle ────────────────────────────────────────────────────────────
+
+    /** Bind to 127.0.0.1 on the given port. Returns false, after logging why, if that fails. */
+    public boolean start(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to start the stats HTTP server on port " + port, e);
+            return false;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+        plugin.getLogger().info("Stats HTTP server listening on 127.0.0.1:" + port + ".");
+        return true;
+    }
+
+    public void stop() {
+        if (server == null) return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+    }
+
+    // ── Routing ──────────────────────────────────────────────────────────────
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            URI uri = exchange.getRequestURI();
+            String[] path = uri.getPath().substring("/api/".length()).split("/", 2);
+            Map<String, String> query = parseQuery(uri.getRawQuery());
+            String route = path[0];
+            String arg = path.length > 1 ? path[1] : "";
+
+            switch (route) {
+                case "schema" -> respond(exchange, "schema", this::writeSchema);
+                case "global" -> respond(exchange, timedTag(), this::writeGlobal);
+                case "top" -> handleTop(exchange, arg, query);
+                case "player" -> handlePlayer(exchange, arg);
+                case "history" -> handleHistory(exchange, query);
+                default -> exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Stats HTTP request failed: " + exchange.getRequestURI(), e);
+        }
+    }
+
+    private void handleTop(HttpExchange exchange, String stat, Map<String, String> query) throws IOException {
+        String statName = stat.toLowerCase(Locale.ROOT);
+        if (!StatsManager.leaderboardStats().contains(statName)) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        int limit = (int) Math.max(1, Math.min(MAX_LIMIT, parseLong(query.get("limit"), 10)));
+        String tag = StatsManager.isWindowStat(statName) ? timedTag() : versionTag();
+        respond(exchange, tag, out -> {
+            out.write('[');
+            List<Map.Entry<String, Number>> top = statsManager.getTopPlayers(statName, limit);
+            for (int i = 0; i < top.size(); i++) {
+                if (i > 0) out.write(',');
+                out.write("{\"position\":" + (i + 1) + ",\"name\":");
+                string(out, top.get(i).getKey());
+                out.write(",\"value\":" + top.get(i).getValue() + '}');
+            }
+            out.write(']');
+        });
+    }
+
+    private void handlePlayer(HttpExchange exchange, String id) throws IOException {
+        UUID uuid = parseUuid(id);
+        if (uuid == null) {
+            NameIndex.Entry entry = statsManager.getNameIndex().get(id);
+            if (entry == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            uuid = entry.uuid();
+        }
+        UUID player = uuid;
+        // Window stats and the remaining protection time move with the clock
+        respond(exchange, timedTag(), out -> {
+            String name = statsManager.getNameIndex().name(player);
+            out.write("{\"uuid\":\"" + player + "\",\"name\":");
+            if (name == null) out.write("null"); else string(out, name);
+            out.write(",\"protected\":" + protectionManager.isProtected(player));
+            out.write(",\"protection_remaining_ms\":" + protectionManager.getRemainingTime(player));
+            out.write(",\"stats\":{");
+            boolean first = true;
+            for (StatsManager.StatDef def : StatsManager.playerSchema()) {
+                if (!first) out.write(',');
+                first = false;
+                string(out, def.key());
+                out.write(":" + statsManager.getPlayerStat(player, def.key()));
+            }
+            out.write("}}");
+        });
+    }
+
+    private void handleHistory(HttpExchange exchange, Map<String, String> query) throws IOException {
+        StatsHistory.Resolution resolution;
+        try {
+            resolution = StatsHistory.Resolution.valueOf(
+                    query.getOrDefault("resolution", "hourly").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        long revision = statsManager.getHistoryRevision();
+        if (revision < 0) {
+            exchange.sendResponseHeaders(404, -1); // stats.history is disabled
+            return;
+        }
+        long from = parseLong(query.get("from"), 0L);
+        long to = parseLong(query.get("to"), Long.MAX_VALUE);
+        respond(exchange, "history-" + revision, out -> {
+            out.write('[');
+            boolean[] first = {true};
+            IOException[] failure = new IOException[1];
+            statsManager.queryHistory(resolution, from, to,
+                    (time, attacksTotal, attacks, grants, protectedLast, protectedMax) -> {
+                        if (failure[0] != null) return;
+                        try {
+                            if (!first[0]) out.write(',');
+                            first[0] = false;
+                            out.write("{\"time\":" + time + ",\"total_attacks_blocked\":" + attacksTotal
+                                    + ",\"attacks_blocked\":" + attacks + ",\"new_protections\":" + grants
+                                    + ",\"protected_players\":" + protectedLast
+                                    + ",\"protected_players_max\":" + protectedMax + '}');
+                        } catch (IOException e) {
+                            failure[0] = e;
+                        }
+                    });
+            if (failure[0] != null) throw failure[0];
+            out.write(']');
+        });
+    }
+
+    // ── Bodies ───────────────────────────────────────────────────────────────
+
+    private void writeSchema(Writer out) throws IOException {
+        out.write("{\"player\":");
+        writeDefs(out, StatsManager.playerSchema());
+        out.write(",\"global\":");
+        writeDefs(out, StatsManager.globalSchema());
+        out.write('}');
+    }
+
+    private void writeDefs(Writer out, List<StatsManager.StatDef> defs) throws IOException {
+        out.write('[');
+        for (int i = 0; i < defs.size(); i++) {
+            StatsManager.StatDef def = defs.get(i);
+            if (i > 0) out.write(',');
+            out.write("{\"key\":");
+            string(out, def.key());
+            out.write(",\"label\":");
+            string(out, def.label());
+            out.write(",\"type\":");
+            string(out, def.type());
+            if (def.unit() != null) {
+                out.write(",\"unit\":");
+                string(out, def.unit());
+            }
+            out.write(",\"leaderboard\":" + def.leaderboard() + '}');
+        }
+        out.write(']');
+    }
+
+    private void writeGlobal(Writer out) throws IOException {
+        out.write('{');
+        List<StatsManager.StatDef> defs = StatsManager.globalSchema();
+        for (int i = 0; i < defs.size(); i++) {
+            if (i > 0) out.write(',');
+            string(out, defs.get(i).key());
+            out.write(":" + statsManager.getGlobalStat(defs.get(i).key()));
+        }
+        out.write('}');
+    }
+
+    // ── Responses ────────────────────────────────────────────────────────────
+
+    /** ETag for bodies that only change with a change event. */
+    private String versionTag() {
+        return Long.toString(version.get());
+    }
+
+    /** ETag for bodies that also change as time passes: rolling windows and countdowns. */
+    private String timedTag() {
+        return version.get() + "-" + System.currentTimeMillis() / WINDOW_BUCKET_MILLIS;
+    }
+
+    /**
+     * Send the body for this URI. A request whose If-None-Match matches gets a bodiless 304,
+     * a cached copy with the same ETag is sent as is, and otherwise the body is serialized
+     * into the chunked response and copied for the next request.
+     */
+    private void respond(HttpExchange exchange, String tag, Body body) throws IOException {
+        String etag = '"' + tag + '"';
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        String key = exchange.getRequestURI().toString();
+        Cached cached = cache.get(key);
+        if (cached != null && cached.etag().equals(etag)) {
+            exchange.sendResponseHeaders(200, cached.body().length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cached.body());
+            }
+            return;
+        }
+
+        ByteArrayOutputStream copy = new ByteArrayOutputStream(1024);
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new OutputStreamWriter(new CopyingStream(exchange.getResponseBody(), copy),
+                StandardCharsets.UTF_8)) {
+            body.write(out);
+        }
+        if (cache.size() >= MAX_CACHED) cache.clear();
+        cache.put(key, new Cached(etag, copy.toByteArray()));
+    }
+
+    /** Passes bytes through to the response and keeps a copy of them. */
+    private static final class CopyingStream extends FilterOutputStream {
+        private final ByteArrayOutputStream copy;
+
+        CopyingStream(OutputStream out, ByteArrayOutputStream copy) {
+            super(out);
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+    }
+
+    // ── Helpers ──────────────────────────────────────────────────────────────
+
+    private static void string(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static long parseLong(String value, long fallback) {
+        if (value == null) return fallback;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
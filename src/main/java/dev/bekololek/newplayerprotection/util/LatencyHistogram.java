@@ -0,0 +1,80 @@
+package dev.bekololek.newplayerprotection.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-scale latency histogram on striped counters.
+ * <p>
+ * Bucket {@code b} counts durations in {@code [2^(b-1), 2^b)} nanoseconds, so recording is
+ * one leading-zero count and a few {@link LongAdder} increments with no locks and no
+ * allocation. Percentiles are the upper bound of the bucket they fall in, which is precise
+ * to within a factor of two; plenty to tell a 20µs handler from a 2ms one.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 40; // the last bucket holds everything above ~4.5 minutes
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0L);
+
+    public LatencyHistogram() {
+        for (int b = 0; b < BUCKETS; b++) counts[b] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /** Record the time since {@code start}, a value from {@link Metrics#start()}. 0 means not timed. */
+    public void recordSince(long start) {
+        if (start != 0L) record(System.nanoTime() - start);
+    }
+
+    public long count() {
+        long n = 0;
+        for (LongAdder c : counts) n += c.sum();
+        return n;
+    }
+
+    public long meanNanos() {
+        long n = count();
+        return n == 0 ? 0 : totalNanos.sum() / n;
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /** Upper bound of the bucket holding the {@code q} quantile, capped at the maximum seen. */
+    public long percentileNanos(double q) {
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            snapshot[b] = counts[b].sum();
+            n += snapshot[b];
+        }
+        if (n == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(q * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += snapshot[b];
+            if (seen >= target) {
+                long upper = b == 0 ? 0 : (1L << b) - 1;
+                return Math.min(upper, maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    public void reset() {
+        for (LongAdder c : counts) c.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,129 @@
+package dev.bekololek.newplayerprotection.util;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A configured message parsed once into literal parts and {@code %placeholder%} slots.
+ * <p>
+ * Messages without slots are deserialized a single time and {@link #component()} returns
+ * the same instance on every call. For messages with slots, the color codes are resolved
+ * once as well: each literal part becomes a prebuilt component, and each slot remembers the
+ * style in effect where it stands. Rendering joins the parts around plain-text values, so it
+ * never parses the text again, and a value containing {@code &} is shown as written.
+ */
+public final class MessageTemplate {
+
+    private static final Pattern SLOT = Pattern.compile("%[A-Za-z0-9_-]+%");
+    private static final LegacyComponentSerializer SERIALIZER = LegacyComponentSerializer.legacyAmpersand();
+
+    private static final char MARK = '\uE000'; // private use; stands in for slot i as MARK + i
+
+    private final String raw;
+    private final String[] slots; // placeholder names, including the percent signs
+    private final Component component; // prebuilt when there are no slots
+    private final Component[] parts; // literal parts around the slots, one more than slots
+    private final Style[] slotStyles; // style in effect at each slot
+
+    private MessageTemplate(String raw, String[] slots, String marked) {
+        this.raw = raw;
+        this.slots = slots;
+        if (slots.length == 0) {
+            this.component = SERIALIZER.deserialize(raw);
+            this.parts = null;
+            this.slotStyles = null;
+            return;
+        }
+        this.component = null;
+        this.parts = new Component[slots.length + 1];
+        this.slotStyles = new Style[slots.length];
+        // Deserialize with each slot as a marker character, then cut the result at the markers
+        List<Component> segments = new ArrayList<>();
+        int[] part = {0};
+        split(SERIALIZER.deserialize(marked), Style.empty(), segments, part);
+        parts[part[0]] = join(segments);
+    }
+
+    /** Parse a message using {@code &} color codes. */
+    public static MessageTemplate compile(String raw) {
+        List<String> slots = new ArrayList<>();
+        StringBuilder marked = new StringBuilder(raw.length());
+        Matcher matcher = SLOT.matcher(raw);
+        int last = 0;
+        while (matcher.find()) {
+            marked.append(raw, last, matcher.start()).append((char) (MARK + slots.size()));
+            slots.add(matcher.group());
+            last = matcher.end();
+        }
+        marked.append(raw, last, raw.length());
+        return new MessageTemplate(raw, slots.toArray(String[]::new), marked.toString());
+    }
+
+    /** Walk the text leaves in order, closing a part at every slot marker. */
+    private void split(Component node, Style inherited, List<Component> segments, int[] part) {
+        Style style = inherited.merge(node.style());
+        if (node instanceof TextComponent text) {
+            String content = text.content();
+            int start = 0;
+            for (int i = 0; i < content.length(); i++) {
+                int slot = content.charAt(i) - MARK;
+                if (slot < 0 || slot >= slots.length) continue;
+                if (i > start) segments.add(Component.text(content.substring(start, i), style));
+                parts[part[0]++] = join(segments);
+                segments.clear();
+                slotStyles[slot] = style;
+                start = i + 1;
+            }
+            if (start < content.length()) segments.add(Component.text(content.substring(start), style));
+        }
+        for (Component child : node.children()) {
+            split(child, style, segments, part);
+        }
+    }
+
+    private static Component join(List<Component> segments) {
+        if (segments.isEmpty()) return Component.empty();
+        if (segments.size() == 1) return segments.get(0);
+        TextComponent.Builder builder = Component.text();
+        for (Component segment : segments) builder.append(segment);
+        return builder.build();
+    }
+
+    /** The message with no placeholders filled in. Cached for messages without slots. */
+    public Component component() {
+        return component != null ? component : render();
+    }
+
+    /**
+     * Fill in placeholders given as name/value pairs, e.g. {@code render("%time%", time)}.
+     * Values are plain text in the style of the slot. Slots without a value are left as written.
+     */
+    public Component render(String... replacements) {
+        if (component != null) return component;
+        TextComponent.Builder builder = Component.text();
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(parts[i]).append(Component.text(valueOf(slots[i], replacements), slotStyles[i]));
+        }
+        builder.append(parts[slots.length]);
+        return builder.build();
+    }
+
+    /** The message as a legacy section-sign string, for APIs that take plain strings. */
+    public String legacy() {
+        return raw.replace("&", "§");
+    }
+
+    private static String valueOf(String slot, String[] replacements) {
+        for (int i = 0; i + 1 < replacements.length; i += 2) {
+            if (replacements[i].equals(slot)) return replacements[i + 1];
+        }
+        return slot;
+    }
+}
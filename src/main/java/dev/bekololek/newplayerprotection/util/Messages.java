@@ -0,0 +1,43 @@
+package dev.bekololek.newplayerprotection.util;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled {@code messages.*} templates. Immutable; a new set is compiled with each
+ * {@link dev.bekololek.newplayerprotection.Settings} snapshot.
+ */
+public final class Messages {
+
+    private final Map<String, MessageTemplate> templates;
+
+    private Messages(Map<String, MessageTemplate> templates) {
+        this.templates = templates;
+    }
+
+    /** Compile every message under the given section (the {@code messages} block). */
+    public static Messages compile(ConfigurationSection section) {
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        if (section != null) {
+            // Include keys only present in the bundled defaults, like getString does
+            Set<String> keys = new HashSet<>(section.getKeys(false));
+            ConfigurationSection defaults = section.getDefaultSection();
+            if (defaults != null) keys.addAll(defaults.getKeys(false));
+            for (String key : keys) {
+                String raw = section.getString(key);
+                if (raw != null) compiled.put(key, MessageTemplate.compile(raw));
+            }
+        }
+        return new Messages(Map.copyOf(compiled));
+    }
+
+    /** Template for a message key, or a "not found" placeholder message. */
+    public MessageTemplate get(String key) {
+        MessageTemplate template = templates.get(key);
+        return template != null ? template : MessageTemplate.compile("&cMessage not found: " + key);
+    }
+}
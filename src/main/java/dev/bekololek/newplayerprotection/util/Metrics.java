@@ -0,0 +1,245 @@
+package dev.bekololek.newplayerprotection.util;
+
+import dev.bekololek.newplayerprotection.Main;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+
+/**
+ * In-process instrumentation: listener latency, save cost, pending saves, placeholder
+ * request rates and cache hits, and the size of the managers' maps.
+ * <p>
+ * Everything recorded from game threads goes to {@link LongAdder}-based counters, so the
+ * hot path never takes a lock or allocates. Sizes are not recorded at all; they are read
+ * through registered gauges when a report is built. Reports are exposed through
+ * {@code /npp debug metrics}, JMX and an optional periodic log line.
+ */
+public final class Metrics implements MetricsMXBean {
+
+    private static final String OBJECT_NAME = "dev.bekololek.newplayerprotection:type=Metrics";
+
+    private enum Family { STAT, GLOBAL, TOP, TOPVALUE, OTHER }
+
+    private static final class SaveStats {
+        final LatencyHistogram duration = new LatencyHistogram();
+        final LongAdder totalBytes = new LongAdder();
+        volatile long lastNanos;
+        volatile long lastBytes;
+    }
+
+    /** A cache's running hit and miss counts, and their values when the window started. */
+    private record CacheCounters(LongSupplier hits, LongSupplier misses, long hitsAtReset, long missesAtReset) {
+
+        CacheCounters restart() {
+            return new CacheCounters(hits, misses, hits.getAsLong(), misses.getAsLong());
+        }
+    }
+
+    private final Main plugin;
+    private final LatencyHistogram damageEvents = new LatencyHistogram();
+    private final LatencyHistogram joinEvents = new LatencyHistogram();
+    private final Map<String, SaveStats> saves = new ConcurrentSkipListMap<>();
+    private final LongAdder pendingSaves = new LongAdder();
+    private final LongAdder[] placeholderRequests = new LongAdder[Family.values().length];
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private volatile CacheCounters placeholderCache; // null until the expansion registers
+    private volatile long resetAt = System.nanoTime();
+    private long lastLogAt = System.nanoTime(); // timer thread only
+    private ObjectName registeredName;
+
+    public Metrics(Main plugin) {
+        this.plugin = plugin;
+        for (int i = 0; i < placeholderRequests.length; i++) placeholderRequests[i] = new LongAdder();
+    }
+
+    // ── Recording ────────────────────────────────────────────────────────────
+
+    /** Start time for {@link LatencyHistogram#recordSince}, or 0 when timing is disabled. */
+    public long start() {
+        return plugin.getSettings().metricsEnabled() ? System.nanoTime() : 0L;
+    }
+
+    public LatencyHistogram damageEvents() {
+        return damageEvents;
+    }
+
+    public LatencyHistogram joinEvents() {
+        return joinEvents;
+    }
+
+    /** Wrap a save task so it counts as pending from now until it finishes. */
+    public Runnable trackSave(Runnable task) {
+        pendingSaves.increment();
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                pendingSaves.decrement();
+            }
+        };
+    }
+
+    /** Record a completed write of {@code file} that began at {@code startNanos}. */
+    public void recordSave(File file, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = file.length();
+        SaveStats stats = saves.computeIfAbsent(
+                file.getName().replace('.', '_'), k -> new SaveStats());
+        stats.duration.record(nanos);
+        stats.totalBytes.add(bytes);
+        stats.lastNanos = nanos;
+        stats.lastBytes = bytes;
+    }
+
+    public void placeholderRequest(String params) {
+        Family family;
+        if (params.startsWith("stat_")) family = Family.STAT;
+        else if (params.startsWith("global_")) family = Family.GLOBAL;
+        else if (params.startsWith("topvalue_")) family = Family.TOPVALUE;
+        else if (params.startsWith("top_")) family = Family.TOP;
+        else family = Family.OTHER;
+        placeholderRequests[family.ordinal()].increment();
+    }
+
+    /** Report the placeholder cache's hits and misses next to the request rates. */
+    public void placeholderCache(LongSupplier hits, LongSupplier misses) {
+        placeholderCache = new CacheCounters(hits, misses, 0, 0).restart();
+    }
+
+    /** Register a size or depth that is read whenever a report is built. */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // ── Reporting ────────────────────────────────────────────────────────────
+
+    @Override
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        long windowMillis = Math.max(1L, (System.nanoTime() - resetAt) / 1_000_000L);
+        out.put("window.seconds", windowMillis / 1000L);
+
+        putLatency(out, "listener.damage", damageEvents);
+        putLatency(out, "listener.join", joinEvents);
+
+        out.put("saves.pending", pendingSaves.sum());
+        for (Map.Entry<String, SaveStats> entry : saves.entrySet()) {
+            String base = "save." + entry.getKey();
+            SaveStats stats = entry.getValue();
+            out.put(base + ".count", stats.duration.count());
+            out.put(base + ".last_ms", stats.lastNanos / 1_000_000L);
+            out.put(base + ".max_ms", stats.duration.maxNanos() / 1_000_000L);
+            out.put(base + ".last_bytes", stats.lastBytes);
+            out.put(base + ".total_bytes", stats.totalBytes.sum());
+        }
+
+        for (Family family : Family.values()) {
+            long count = placeholderRequests[family.ordinal()].sum();
+            String base = "placeholders." + family.name().toLowerCase(Locale.ROOT);
+            out.put(base + ".count", count);
+            out.put(base + ".per_min", count * 60_000L / windowMillis);
+        }
+        CacheCounters cache = placeholderCache;
+        if (cache != null) {
+            long hits = cache.hits().getAsLong() - cache.hitsAtReset();
+            long misses = cache.misses().getAsLong() - cache.missesAtReset();
+            out.put("placeholders.cache.hits", hits);
+            out.put("placeholders.cache.misses", misses);
+            out.put("placeholders.cache.hit_percent", hits + misses == 0 ? 0 : hits * 100 / (hits + misses));
+        }
+
+        new TreeMap<>(gauges).forEach((name, gauge) -> {
+            try {
+                out.put("size." + name, gauge.getAsLong());
+            } catch (RuntimeException e) {
+                out.put("size." + name, -1L);
+            }
+        });
+        return out;
+    }
+
+    @Override
+    public long getPendingSaves() {
+        return pendingSaves.sum();
+    }
+
+    @Override
+    public void reset() {
+        damageEvents.reset();
+        joinEvents.reset();
+        saves.clear();
+        for (LongAdder counter : placeholderRequests) counter.reset();
+        CacheCounters cache = placeholderCache;
+        if (cache != null) placeholderCache = cache.restart();
+        resetAt = System.nanoTime();
+    }
+
+    private static void putLatency(Map<String, Long> out, String base, LatencyHistogram histogram) {
+        out.put(base + ".count", histogram.count());
+        out.put(base + ".mean_us", histogram.meanNanos() / 1000L);
+        out.put(base + ".p50_us", histogram.percentileNanos(0.50) / 1000L);
+        out.put(base + ".p99_us", histogram.percentileNanos(0.99) / 1000L);
+        out.put(base + ".max_us", histogram.maxNanos() / 1000L);
+    }
+
+    // ── JMX / periodic log ───────────────────────────────────────────────────
+
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            // A previous instance survives if the plugin was reloaded without a clean disable
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (JMException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to register metrics MBean", e);
+        }
+    }
+
+    public void unregisterMBean() {
+        if (registeredName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to unregister metrics MBean", e);
+        }
+        registeredName = null;
+    }
+
+    /**
+     * Check once a second whether the log line is due. The interval is read from the
+     * current settings each time, so a reload can turn the line on or off.
+     */
+    public void startLogging() {
+        plugin.getTaskScheduler().runTimer(() -> {
+            long interval = plugin.getSettings().metricsLogIntervalMillis();
+            long now = System.nanoTime();
+            if (interval <= 0 || (now - lastLogAt) / 1_000_000L < interval) return;
+            lastLogAt = now;
+            plugin.getTaskScheduler().runAsync(() -> plugin.getLogger().info("Metrics: " + summary()));
+        }, 20L, 20L);
+    }
+
+    /** One line of every non-zero metric. */
+    private String summary() {
+        StringJoiner line = new StringJoiner(" ");
+        getMetrics().forEach((key, value) -> {
+            if (value != 0) line.add(key + "=" + value);
+        });
+        return line.toString();
+    }
+}
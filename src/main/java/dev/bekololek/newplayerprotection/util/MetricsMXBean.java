@@ -0,0 +1,18 @@
+package dev.bekololek.newplayerprotection.util;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link Metrics}, registered as
+ * {@code dev.bekololek.newplayerprotection:type=Metrics}.
+ */
+public interface MetricsMXBean {
+
+    /** Every metric by name, in the same layout as {@code /npp debug metrics}. */
+    Map<String, Long> getMetrics();
+
+    long getPendingSaves();
+
+    /** Clear every histogram and counter. Gauges are unaffected. */
+    void reset();
+}
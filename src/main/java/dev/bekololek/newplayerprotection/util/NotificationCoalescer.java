@@ -0,0 +1,135 @@
+package dev.bekololek.newplayerprotection.util;
+
+import dev.bekololek.newplayerprotection.Main;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merges bursts of the same message to the same player.
+ * <p>
+ * The first message of a burst is sent immediately. Repeats within the window are only
+ * counted, and once the window has passed a single summary with an "(xN)" counter is sent,
+ * as an action bar by default.
+ * <p>
+ * Each player has one slot, reused for as long as they are online, holding a few open
+ * bursts told apart by message identity. Callers pass the cached components from
+ * {@link MessageTemplate}, so a repeat is a reference match and counting it allocates
+ * nothing. Slot state is only touched under the slot's lock. A slot is retired under that
+ * lock before it leaves the map, and senders that find it retired look up a new one, so no
+ * attempt is lost between counting and summarizing.
+ */
+public final class NotificationCoalescer {
+
+    private static final long SWEEP_TICKS = 5L;
+    private static final int MAX_BURSTS = 4; // per player; further messages are sent as they come
+
+    private final Main plugin;
+    private final Map<UUID, Slot> slots = new ConcurrentHashMap<>();
+
+    private static final class Slot {
+        final Component[] messages = new Component[MAX_BURSTS]; // null: free
+        final long[] startedAt = new long[MAX_BURSTS];
+        final int[] suppressed = new int[MAX_BURSTS];
+        boolean retired; // removed from the map; senders must look up a new slot
+
+        /** Count a message. Returns true if it starts a burst (or no burst has room) and is sent now. */
+        boolean hit(Component message, long now) {
+            int free = -1;
+            for (int i = 0; i < MAX_BURSTS; i++) {
+                if (messages[i] == message) {
+                    suppressed[i]++;
+                    return false;
+                }
+                if (free < 0 && messages[i] == null) free = i;
+            }
+            if (free >= 0) {
+                messages[free] = message;
+                startedAt[free] = now;
+                suppressed[free] = 0;
+            }
+            return true;
+        }
+
+        boolean isEmpty() {
+            for (Component message : messages) {
+                if (message != null) return false;
+            }
+            return true;
+        }
+    }
+
+    public NotificationCoalescer(Main plugin) {
+        this.plugin = plugin;
+        plugin.getTaskScheduler().runTimer(this::sweep, SWEEP_TICKS, SWEEP_TICKS);
+    }
+
+    /** Send now if this starts a burst, otherwise count it towards the burst's summary. */
+    public void send(Player player, Component message) {
+        if (plugin.getSettings().coalesceWindowMillis() == 0) {
+            player.sendMessage(message);
+            return;
+        }
+        UUID uuid = player.getUniqueId();
+        long now = System.currentTimeMillis();
+        while (true) {
+            Slot slot = slots.get(uuid);
+            if (slot == null) slot = slots.computeIfAbsent(uuid, k -> new Slot());
+            boolean first;
+            synchronized (slot) {
+                if (slot.retired) continue;
+                first = slot.hit(message, now);
+            }
+            if (first) player.sendMessage(message);
+            return;
+        }
+    }
+
+    /** End bursts whose window has passed and send their summaries. Global thread. */
+    private void sweep() {
+        if (slots.isEmpty()) return;
+        long windowMillis = plugin.getSettings().coalesceWindowMillis();
+        boolean actionBar = plugin.getSettings().summaryAsActionBar();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<UUID, Slot> entry : slots.entrySet()) {
+            Player player = Bukkit.getPlayer(entry.getKey());
+            Slot slot = entry.getValue();
+            List<Component> summaries = null;
+            synchronized (slot) {
+                for (int i = 0; i < MAX_BURSTS; i++) {
+                    Component message = slot.messages[i];
+                    if (message == null || now - slot.startedAt[i] < windowMillis) continue;
+                    slot.messages[i] = null;
+                    if (slot.suppressed[i] == 0 || player == null) continue;
+                    if (summaries == null) summaries = new ArrayList<>(MAX_BURSTS);
+                    summaries.add(message.append(
+                            Component.text(" (x" + (slot.suppressed[i] + 1) + ")", NamedTextColor.GRAY)));
+                }
+                // Online players keep their slot; it is dropped once they left and it is empty
+                if (player == null && slot.isEmpty()) {
+                    slot.retired = true;
+                    slots.remove(entry.getKey(), slot);
+                }
+            }
+            if (summaries == null) continue;
+
+            List<Component> send = summaries;
+            plugin.getTaskScheduler().runForPlayer(player, () -> {
+                for (Component summary : send) {
+                    if (actionBar) {
+                        player.sendActionBar(summary);
+                    } else {
+                        player.sendMessage(summary);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package dev.bekololek.newplayerprotection.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Thin scheduling layer that works on both Paper and Folia.
+ * <p>
+ * On Folia there is no main thread: repeating tasks go to the global region scheduler,
+ * background work to the async scheduler, and anything touching a player to that player's
+ * entity scheduler. On Paper the regular Bukkit scheduler is used.
+ */
+public class TaskScheduler {
+
+    private static final boolean FOLIA = detectFolia();
+
+    private final Plugin plugin;
+
+    public TaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    private static boolean detectFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public static boolean isFolia() {
+        return FOLIA;
+    }
+
+    /** Run off the server thread(s). */
+    public void runAsync(Runnable task) {
+        if (FOLIA) {
+            Bukkit.getAsyncScheduler().runNow(plugin, t -> task.run());
+        } else {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+        }
+    }
+
+    /** Repeat on the main thread, or the global region thread on Folia. Delays are in ticks. */
+    public void runTimer(Runnable task, long delay, long period) {
+        if (FOLIA) {
+            Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, t -> task.run(),
+                    Math.max(1L, delay), period);
+        } else {
+            Bukkit.getScheduler().runTaskTimer(plugin, task, delay, period);
+        }
+    }
+
+    /** Run once on the main thread, or the global region thread on Folia. */
+    public void runGlobal(Runnable task) {
+        if (FOLIA) {
+            Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+        } else if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /** Run once after {@code delay} ticks on the main thread, or the global region thread on Folia. */
+    public void runGlobalLater(Runnable task, long delay) {
+        if (FOLIA) {
+            Bukkit.getGlobalRegionScheduler().runDelayed(plugin, t -> task.run(), Math.max(1L, delay));
+        } else {
+            Bukkit.getScheduler().runTaskLater(plugin, task, delay);
+        }
+    }
+
+    /** Run on the thread that owns the player. Dropped if the player leaves first. */
+    public void runForPlayer(Player player, Runnable task) {
+        if (FOLIA) {
+            player.getScheduler().run(plugin, t -> task.run(), null);
+        } else if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /** Cancel every task this plugin has scheduled. */
+    public void cancelAll() {
+        if (FOLIA) {
+            Bukkit.getGlobalRegionScheduler().cancelTasks(plugin);
+            Bukkit.getAsyncScheduler().cancelTasks(plugin);
+        } else {
+            Bukkit.getScheduler().cancelTasks(plugin);
+        }
+    }
+}